@@ -16,7 +16,9 @@
 package io.cettia.asity.action;
 
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base implementation of {@link Actions}.
@@ -25,39 +27,102 @@ import java.util.List;
  */
 public abstract class AbstractActions<T> implements Actions<T> {
 
+  private static volatile ActionsObserver observer;
+
   protected final List<Action<T>> actionList;
-  private final Actions.Options options;
+  // With the unique option, maps each action to its slot in the list by
+  // identity so that an action is checked and removed in constant time
+  private final Map<Action<T>, Slot<T>> actionIndex;
+  // The number of slots removed from the index but not yet from the list
+  private int staleSlots;
+  private final boolean once;
+  private final boolean memory;
 
   protected AbstractActions() {
     this(new Actions.Options());
   }
 
   protected AbstractActions(Actions.Options o) {
-    this.options = new Actions.Options(o);
+    this.once = o.once();
+    this.memory = o.memory();
     this.actionList = createList();
+    this.actionIndex = o.unique() ? new IdentityHashMap<>() : null;
   }
 
   protected abstract List<Action<T>> createList();
 
+  /**
+   * Installs an observer to instrument every {@link AbstractActions}. Pass
+   * {@code null} to uninstall it.
+   */
+  public static void setObserver(ActionsObserver o) {
+    observer = o;
+  }
+
   @Override
   public Actions<T> add(Action<T> action) {
     if (!disabled()) {
-      if (options.memory() && fired()) {
+      if (memory && fired()) {
         fireOne(action, cached());
       }
-      if (!options.unique() || (options.unique() && !actionList.contains(action))) {
+      if (actionIndex == null) {
         actionList.add(action);
+      } else {
+        addUnique(action);
       }
     }
     return this;
   }
 
+  // The methods for the unique option update the index and the list together
+  // and aren't thread-safe. A thread-safe implementation overrides them to
+  // lock
+
+  void addUnique(Action<T> action) {
+    if (!actionIndex.containsKey(action)) {
+      Slot<T> slot = new Slot<>(action);
+      actionIndex.put(action, slot);
+      actionList.add(slot);
+    }
+  }
+
+  boolean hasUnique() {
+    return !actionIndex.isEmpty();
+  }
+
+  boolean hasUnique(Action<T> action) {
+    return actionIndex.containsKey(action);
+  }
+
+  void removeUnique(Action<T> action) {
+    Slot<T> slot = actionIndex.remove(action);
+    if (slot != null) {
+      // The slot is marked rather than taken out of the list, and marked
+      // slots are taken out at once when they outnumber the others, so that
+      // removing is amortized constant time
+      slot.removed = true;
+      if (++staleSlots > actionIndex.size()) {
+        actionList.removeIf(a -> ((Slot<T>) a).removed);
+        staleSlots = 0;
+      }
+    }
+  }
+
+  void clearUnique() {
+    for (Slot<T> slot : actionIndex.values()) {
+      slot.removed = true;
+    }
+    actionIndex.clear();
+    actionList.clear();
+    staleSlots = 0;
+  }
+
   protected abstract T cached();
 
   @Override
   public Actions<T> disable() {
     if (setDisabled()) {
-      actionList.clear();
+      clear();
     }
     return this;
   }
@@ -66,10 +131,18 @@ public abstract class AbstractActions<T> implements Actions<T> {
 
   @Override
   public Actions<T> empty() {
-    actionList.clear();
+    clear();
     return this;
   }
 
+  private void clear() {
+    if (actionIndex == null) {
+      actionList.clear();
+    } else {
+      clearUnique();
+    }
+  }
+
   @Override
   public Actions<T> fire() {
     return fire(null);
@@ -77,40 +150,177 @@ public abstract class AbstractActions<T> implements Actions<T> {
 
   @Override
   public Actions<T> fire(T data) {
-    if (!disabled() && !(options.once() && fired())) {
+    if (!disabled() && !(once && fired())) {
       setFired();
-      if (options.memory()) {
+      if (memory) {
         setCache(data);
       }
-      for (int i = 0; i < actionList.size(); i++) {
-        fireOne(actionList.get(i), data);
+      ActionsObserver o = observer;
+      if (o != null) {
+        o.onFire(this);
       }
+      fireActions(data);
     }
     return this;
   }
 
+  /**
+   * Calls each action in the list with the given data. The list is read
+   * again on every step so that an action can affect the rest of the fire.
+   */
+  protected void fireActions(T data) {
+    for (int i = 0; i < actionList.size(); i++) {
+      Action<T> action = unwrap(actionList.get(i));
+      if (action != null) {
+        fireOne(action, data);
+      }
+    }
+  }
+
+  @Override
+  public Actions<T> fireBatch(List<T> data) {
+    if (data.isEmpty()) {
+      return this;
+    }
+    if (once) {
+      return fire(data.get(0));
+    }
+    if (!disabled()) {
+      setFired();
+      if (memory) {
+        setCache(data.get(data.size() - 1));
+      }
+      ActionsObserver o = observer;
+      if (o != null) {
+        o.onFire(this);
+      }
+      fireBatchActions(data);
+    }
+    return this;
+  }
+
+  /**
+   * Calls each action in the list with the given values in the same way as
+   * {@link #fireActions(Object)}.
+   */
+  protected void fireBatchActions(List<T> data) {
+    for (int i = 0; i < actionList.size(); i++) {
+      Action<T> action = unwrap(actionList.get(i));
+      if (action != null) {
+        fireBatchOne(action, data);
+      }
+    }
+  }
+
   protected abstract void setFired();
 
   protected abstract void setCache(T data);
 
   @Override
   public boolean has() {
-    return !actionList.isEmpty();
+    return actionIndex != null ? hasUnique() : !actionList.isEmpty();
   }
 
   @Override
   public boolean has(Action<T> action) {
-    return actionList.contains(action);
+    return actionIndex != null ? hasUnique(action) : actionList.contains(action);
   }
 
   @Override
   public Actions<T> remove(Action<T> action) {
-    actionList.removeAll(Collections.singleton(action));
+    if (actionIndex == null) {
+      actionList.removeAll(Collections.singleton(action));
+    } else {
+      removeUnique(action);
+    }
     return this;
   }
 
+  /**
+   * Returns the action to call for the given element of the list or
+   * {@code null} if it has been removed.
+   */
+  static <T> Action<T> unwrap(Action<T> action) {
+    if (action instanceof Slot) {
+      Slot<T> slot = (Slot<T>) action;
+      return slot.removed ? null : slot.action;
+    }
+    return action;
+  }
+
   protected void fireOne(Action<T> action, T data) {
-    action.on(data);
+    invoke(action, data);
+  }
+
+  protected void fireBatchOne(Action<T> action, List<T> data) {
+    if (action instanceof BatchAction) {
+      invokeBatch((BatchAction<T>) action, data);
+    } else {
+      for (int i = 0; i < data.size() && !disabled(); i++) {
+        fireOne(action, data.get(i));
+      }
+    }
+  }
+
+  /**
+   * Calls the action with the given data. Implementations should call actions
+   * through this method so that the observer can see them.
+   */
+  protected final void invoke(Action<T> action, T data) {
+    ActionsObserver o = observer;
+    if (o == null) {
+      action.on(data);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      action.on(data);
+    } catch (RuntimeException | Error e) {
+      o.onError(this, action, e);
+      throw e;
+    } finally {
+      o.onAction(this, action, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Calls the batch action with the given data in the same way as
+   * {@link #invoke(Action, Object)}.
+   */
+  protected final void invokeBatch(BatchAction<T> action, List<T> data) {
+    ActionsObserver o = observer;
+    if (o == null) {
+      action.onBatch(data);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      action.onBatch(data);
+    } catch (RuntimeException | Error e) {
+      o.onError(this, action, e);
+      throw e;
+    } finally {
+      o.onAction(this, action, System.nanoTime() - start);
+    }
+  }
+
+  // An action added with the unique option. The list holds it in place of
+  // the action, and it can still be called directly in case an implementation
+  // iterates the list on its own
+  static final class Slot<T> implements Action<T> {
+    final Action<T> action;
+    volatile boolean removed;
+
+    Slot(Action<T> action) {
+      this.action = action;
+    }
+
+    @Override
+    public void on(T data) {
+      if (!removed) {
+        action.on(data);
+      }
+    }
   }
 
 }
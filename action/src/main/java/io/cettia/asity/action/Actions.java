@@ -15,6 +15,8 @@
  */
 package io.cettia.asity.action;
 
+import java.util.List;
+
 /**
  * A manager for a set of {@link Action}s. Inspired by jQuery's Callbacks.
  * <p/>
@@ -55,6 +57,20 @@ public interface Actions<T> {
    */
   Actions<T> fire(T data);
 
+  /**
+   * Fire all of the actions with the given values in order. By default, it
+   * calls {@link #fire(Object)} with each value. {@link AbstractActions}
+   * instead lets each action receive all the values before the next action is
+   * called, and a {@link BatchAction} receive them in one call. With the once
+   * option, only the first value is fired.
+   */
+  default Actions<T> fireBatch(List<T> data) {
+    for (int i = 0; i < data.size(); i++) {
+      fire(data.get(i));
+    }
+    return this;
+  }
+
   /**
    * Determines if the actions have been called at least once.
    */
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+/**
+ * An observer to be notified of what happens in {@link AbstractActions} to
+ * instrument them. It's installed globally through
+ * {@link AbstractActions#setObserver(ActionsObserver)} and costs nothing
+ * when it's not installed.
+ * <p/>
+ * Methods are called by the thread calling the actions, which may be an I/O
+ * thread, so implementations should be thread-safe and return quickly.
+ *
+ * @author Donghwan Kim
+ */
+public interface ActionsObserver {
+
+  /**
+   * Called when the actions are fired, once per {@link Actions#fire(Object)}
+   * or {@link Actions#fireBatch(java.util.List)}.
+   */
+  void onFire(Actions<?> actions);
+
+  /**
+   * Called when an action has returned or thrown, with the elapsed time in
+   * nanoseconds.
+   */
+  void onAction(Actions<?> actions, Action<?> action, long nanos);
+
+  /**
+   * Called when an action has thrown an exception. It's called before
+   * {@link #onAction(Actions, Action, long)} for that call.
+   */
+  void onError(Actions<?> actions, Action<?> action, Throwable throwable);
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Thread-safe implementation of {@link Actions} which calls actions on the
+ * given {@link Executor} instead of the thread firing them. Calls run one by
+ * one in the order they are fired through a {@link SerialExecutor}, so any
+ * executor including a fork-join pool or a virtual-thread-per-task executor
+ * can be used. If the given executor is a {@link SerialExecutor}, calls are
+ * queued there, so actions created with the same one, e.g. for all the events
+ * of an exchange, see the events in order across them. Otherwise, calls are
+ * queued per instance.
+ * <p/>
+ * Because an action is called later on another thread, the data shouldn't be
+ * reused by the firing side. Once the actions are disabled, queued calls are
+ * dropped. An exception thrown by an action is logged and doesn't affect the
+ * following calls.
+ *
+ * @author Donghwan Kim
+ */
+public class AsyncActions<T> extends ConcurrentActions<T> {
+
+  private final SerialExecutor executor;
+
+  public AsyncActions(Executor executor) {
+    super();
+    this.executor = serial(executor);
+  }
+
+  public AsyncActions(Executor executor, Actions.Options o) {
+    super(o);
+    this.executor = serial(executor);
+  }
+
+  private static SerialExecutor serial(Executor executor) {
+    return executor instanceof SerialExecutor ?
+      (SerialExecutor) executor :
+      new SerialExecutor(executor);
+  }
+
+  @Override
+  protected void fireOne(Action<T> action, T data) {
+    execute(() -> invoke(action, data));
+  }
+
+  @Override
+  protected void fireBatchOne(Action<T> action, List<T> data) {
+    // The list may be reused once the fire returns
+    List<T> copy = new ArrayList<>(data);
+    execute(() -> {
+      if (action instanceof BatchAction) {
+        invokeBatch((BatchAction<T>) action, copy);
+      } else {
+        for (int i = 0; i < copy.size() && !disabled(); i++) {
+          invoke(action, copy.get(i));
+        }
+      }
+    });
+  }
+
+  private void execute(Runnable call) {
+    executor.execute(() -> {
+      if (!disabled()) {
+        call.run();
+      }
+    });
+  }
+
+}
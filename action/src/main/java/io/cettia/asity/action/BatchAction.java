@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An action which can take a batch of values at once. When fired through
+ * {@link Actions#fireBatch(List)}, it receives the whole batch in one call
+ * instead of one call per value.
+ *
+ * @author Donghwan Kim
+ */
+@FunctionalInterface
+public interface BatchAction<T> extends Action<T> {
+
+  /**
+   * Some action is taken with the given values in order. The list is only
+   * valid during the call.
+   */
+  void onBatch(List<T> objects);
+
+  @Override
+  default void on(T object) {
+    onBatch(Collections.singletonList(object));
+  }
+
+}
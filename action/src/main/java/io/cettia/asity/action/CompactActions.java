@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.List;
+
+/**
+ * Simple implementation of {@link Actions} which is optimized for memory
+ * footprint. It keeps the first action inline and only allocates an array
+ * when the second action is added, so that actions which end up with none or
+ * one action cost a few bytes. Like {@link SimpleActions}, it's not
+ * thread-safe.
+ *
+ * @author Donghwan Kim
+ */
+public class CompactActions<T> extends SimpleActions<T> {
+
+  public CompactActions() {
+    super();
+  }
+
+  public CompactActions(Actions.Options o) {
+    super(o);
+  }
+
+  @Override
+  protected List<Action<T>> createList() {
+    return new CompactList<>();
+  }
+
+}
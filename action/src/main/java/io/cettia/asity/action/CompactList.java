@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Non-thread-safe list which keeps a single element inline and only allocates
+ * an array when the second element is added.
+ *
+ * @author Donghwan Kim
+ */
+class CompactList<E> extends AbstractList<E> implements RandomAccess {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  // Either the only element or an array of the elements
+  private Object slot;
+  private int size;
+
+  @Override
+  public boolean add(E e) {
+    if (size == 0) {
+      slot = e;
+    } else if (size == 1) {
+      Object[] elements = new Object[INITIAL_CAPACITY];
+      elements[0] = slot;
+      elements[1] = e;
+      slot = elements;
+    } else {
+      Object[] elements = (Object[]) slot;
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size << 1);
+        slot = elements;
+      }
+      elements[size] = e;
+    }
+    size++;
+    modCount++;
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public E get(int index) {
+    checkIndex(index);
+    return (E) (size == 1 ? slot : ((Object[]) slot)[index]);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public E remove(int index) {
+    checkIndex(index);
+    Object removed;
+    if (size == 1) {
+      removed = slot;
+      slot = null;
+    } else {
+      Object[] elements = (Object[]) slot;
+      removed = elements[index];
+      System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+      elements[size - 1] = null;
+      // Goes back to the inline slot
+      if (size == 2) {
+        slot = elements[0];
+      }
+    }
+    size--;
+    modCount++;
+    return (E) removed;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    slot = null;
+    size = 0;
+    modCount++;
+  }
+
+}
@@ -30,6 +30,8 @@ public class ConcurrentActions<T> extends AbstractActions<T> {
   private final AtomicBoolean disabled = new AtomicBoolean();
   private final AtomicBoolean fired = new AtomicBoolean();
   private final AtomicReference<T> cached = new AtomicReference<>();
+  // Guards the index and the list with the unique option
+  private final Object uniqueLock = new Object();
 
   public ConcurrentActions() {
     super();
@@ -44,6 +46,41 @@ public class ConcurrentActions<T> extends AbstractActions<T> {
     return new CopyOnWriteArrayList<>();
   }
 
+  @Override
+  void addUnique(Action<T> action) {
+    synchronized (uniqueLock) {
+      super.addUnique(action);
+    }
+  }
+
+  @Override
+  boolean hasUnique() {
+    synchronized (uniqueLock) {
+      return super.hasUnique();
+    }
+  }
+
+  @Override
+  boolean hasUnique(Action<T> action) {
+    synchronized (uniqueLock) {
+      return super.hasUnique(action);
+    }
+  }
+
+  @Override
+  void removeUnique(Action<T> action) {
+    synchronized (uniqueLock) {
+      super.removeUnique(action);
+    }
+  }
+
+  @Override
+  void clearUnique() {
+    synchronized (uniqueLock) {
+      super.clearUnique();
+    }
+  }
+
   @Override
   protected void setCache(T data) {
     this.cached.set(data);
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe implementation of {@link Actions} which only cares about the
+ * latest value. Actions are called on the given {@link Executor}, and a fire
+ * made while the previous one is still being delivered replaces any fire
+ * pending so far instead of being queued. A slow action therefore skips stale
+ * values rather than falling behind. A batch fired by
+ * {@link #fireBatch(List)} counts as a single fire.
+ * <p/>
+ * With the memory option, an action added after a fire is still called with
+ * the latest value right away by the adding thread. Once the actions are
+ * disabled, a pending fire is dropped. An exception thrown by an action is
+ * logged and doesn't affect the following fires.
+ *
+ * @author Donghwan Kim
+ */
+public class ConflatingActions<T> extends ConcurrentActions<T> {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConflatingActions.class);
+
+  private final Executor executor;
+  private final AtomicReference<Runnable> pending = new AtomicReference<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  public ConflatingActions(Executor executor) {
+    super();
+    this.executor = executor;
+  }
+
+  public ConflatingActions(Executor executor, Actions.Options o) {
+    super(o);
+    this.executor = executor;
+  }
+
+  @Override
+  protected void fireActions(T data) {
+    submit(() -> super.fireActions(data));
+  }
+
+  @Override
+  protected void fireBatchActions(List<T> data) {
+    // The list may be reused once the fire returns
+    List<T> copy = new ArrayList<>(data);
+    submit(() -> super.fireBatchActions(copy));
+  }
+
+  private void submit(Runnable fire) {
+    pending.set(fire);
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    for (; ; ) {
+      Runnable fire = pending.getAndSet(null);
+      if (fire != null) {
+        try {
+          if (!disabled()) {
+            fire.run();
+          }
+        } catch (RuntimeException e) {
+          logger.warn("An action of {} threw an exception", this, e);
+        } catch (Error e) {
+          // Another run delivers what's pending not to get stuck
+          scheduled.set(false);
+          if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+          }
+          throw e;
+        }
+        continue;
+      }
+      scheduled.set(false);
+      // Checks again as a fire might have been submitted before resetting the flag
+      if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+        return;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ActionsObserver} which records the execution time of actions into a
+ * histogram per action class. As a lambda gets its own class per call site,
+ * a handler registered via {@code onhttp} or {@code ontext} is reported
+ * separately from the others.
+ * <p/>
+ * The histogram has power-of-two buckets in nanoseconds so that recording is
+ * lock-free and constant time, and a percentile is reported as the upper
+ * bound of its bucket.
+ * <p/>
+ * <pre>
+ * HistogramActionsObserver observer = new HistogramActionsObserver();
+ * AbstractActions.setObserver(observer);
+ * // Later
+ * System.out.println(observer);
+ * </pre>
+ *
+ * @author Donghwan Kim
+ */
+public class HistogramActionsObserver implements ActionsObserver {
+
+  private final LongAdder fireCount = new LongAdder();
+  private final ConcurrentMap<Class<?>, Histogram> histograms = new ConcurrentHashMap<>();
+
+  @Override
+  public void onFire(Actions<?> actions) {
+    fireCount.increment();
+  }
+
+  @Override
+  public void onAction(Actions<?> actions, Action<?> action, long nanos) {
+    histogram(action).record(nanos);
+  }
+
+  @Override
+  public void onError(Actions<?> actions, Action<?> action, Throwable throwable) {
+    histogram(action).errorCount.increment();
+  }
+
+  private Histogram histogram(Action<?> action) {
+    Class<?> clazz = action.getClass();
+    Histogram histogram = histograms.get(clazz);
+    if (histogram == null) {
+      histogram = histograms.computeIfAbsent(clazz, $ -> new Histogram());
+    }
+    return histogram;
+  }
+
+  /**
+   * Returns the number of fires.
+   */
+  public long fireCount() {
+    return fireCount.sum();
+  }
+
+  /**
+   * Returns the histograms by action class, in descending order of the total
+   * execution time.
+   */
+  public Map<Class<?>, Histogram> histograms() {
+    List<Map.Entry<Class<?>, Histogram>> entries = new ArrayList<>(histograms.entrySet());
+    entries.sort((a, b) -> Long.compare(b.getValue().totalNanos(), a.getValue().totalNanos()));
+    Map<Class<?>, Histogram> map = new LinkedHashMap<>();
+    for (Map.Entry<Class<?>, Histogram> entry : entries) {
+      map.put(entry.getKey(), entry.getValue());
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * Clears all the recorded values.
+   */
+  public void reset() {
+    fireCount.reset();
+    histograms.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("fires=").append(fireCount());
+    for (Map.Entry<Class<?>, Histogram> entry : histograms().entrySet()) {
+      builder.append('\n').append(entry.getKey().getName()).append(' ').append(entry.getValue());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Execution time histogram of an action.
+   *
+   * @author Donghwan Kim
+   */
+  public static class Histogram {
+
+    // Bucket i holds values in [2^(i-1), 2^i)
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder errorCount = new LongAdder();
+
+    void record(long nanos) {
+      buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Returns the number of calls.
+     */
+    public long count() {
+      long count = 0;
+      for (int i = 0; i < buckets.length(); i++) {
+        count += buckets.get(i);
+      }
+      return count;
+    }
+
+    /**
+     * Returns the number of calls which threw an exception.
+     */
+    public long errorCount() {
+      return errorCount.sum();
+    }
+
+    public long totalNanos() {
+      return totalNanos.sum();
+    }
+
+    public long maxNanos() {
+      return maxNanos.get();
+    }
+
+    /**
+     * Returns the upper bound of the given percentile between 0 and 100 in
+     * nanoseconds.
+     */
+    public long percentileNanos(double percentile) {
+      long count = count();
+      if (count == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < buckets.length(); i++) {
+        seen += buckets.get(i);
+        if (seen >= rank) {
+          return Math.min(i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1, maxNanos());
+        }
+      }
+      return maxNanos();
+    }
+
+    @Override
+    public String toString() {
+      long count = count();
+      return String.format("[count=%d,errors=%d,mean=%dns,p50=%dns,p99=%dns,max=%dns]", count,
+        errorCount(), count == 0 ? 0 : totalNanos() / count, percentileNanos(50),
+        percentileNanos(99), maxNanos());
+    }
+
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.List;
+
+/**
+ * Thread-safe implementation of {@link Actions} which never locks nor copies
+ * the whole list on adding or removing an action. It's suitable for actions
+ * which are fired, attached and detached frequently by multiple threads.
+ * Removing an action marks its slot rather than copying the list, and the
+ * list is compacted once removed slots outnumber the actions.
+ * <p/>
+ * A fire works on a snapshot of the actions taken when it starts so that it
+ * never blocks nor retries. An action removed during a fire may still be
+ * called in that fire, but disabling the actions stops the fire at once.
+ *
+ * @author Donghwan Kim
+ */
+public class LockFreeActions<T> extends ConcurrentActions<T> {
+
+  public LockFreeActions() {
+    super();
+  }
+
+  public LockFreeActions(Actions.Options o) {
+    super(o);
+  }
+
+  @Override
+  protected List<Action<T>> createList() {
+    return new SnapshotList<>();
+  }
+
+  @Override
+  protected void fireActions(T data) {
+    for (Action<T> element : actionList) {
+      if (disabled()) {
+        break;
+      }
+      Action<T> action = unwrap(element);
+      if (action != null) {
+        fireOne(action, data);
+      }
+    }
+  }
+
+  @Override
+  protected void fireBatchActions(List<T> data) {
+    for (Action<T> element : actionList) {
+      if (disabled()) {
+        break;
+      }
+      Action<T> action = unwrap(element);
+      if (action != null) {
+        fireBatchOne(action, data);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Executor} which runs tasks one by one in the order they are
+ * submitted on the given executor. Several {@link AsyncActions} created with
+ * the same instance share one queue, so that, for example, the actions of all
+ * the events of an exchange see the events in the order they are fired.
+ * <p/>
+ * An exception thrown by a task is logged and doesn't affect the following
+ * tasks. If the given executor rejects to run the queue, it's run on the
+ * submitting thread instead so that the queued tasks aren't stuck.
+ *
+ * @author Donghwan Kim
+ */
+public class SerialExecutor implements Executor {
+
+  private static final Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+
+  private final Executor executor;
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+  // The number of queued tasks. The one who increases it from 0 starts draining
+  private final AtomicInteger pending = new AtomicInteger();
+
+  public SerialExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    queue.offer(task);
+    if (pending.getAndIncrement() == 0) {
+      schedule();
+    }
+  }
+
+  private void schedule() {
+    try {
+      executor.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      logger.debug("{} drains on the current thread as the executor rejected it", this, e);
+      drain();
+    }
+  }
+
+  private void drain() {
+    do {
+      Runnable task = queue.poll();
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.warn("A task of {} threw an exception", this, e);
+      } catch (Error e) {
+        // The rest is drained by another run not to stall the queue
+        if (pending.decrementAndGet() > 0) {
+          schedule();
+        }
+        throw e;
+      }
+    } while (pending.decrementAndGet() > 0);
+  }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Lock-free list which publishes a snapshot of its elements through
+ * compare-and-set. Reads and iteration work on a single snapshot and never
+ * block or retry.
+ * <p/>
+ * A snapshot may share its array with the previous one. An add reserves the
+ * next slot of the array, writes the element there and then publishes a
+ * snapshot with the increased size, so that adding is amortized O(1). If the
+ * slot is reserved by a concurrent add or the array is full, the elements are
+ * copied to a larger array. A removal publishes a snapshot which marks the
+ * element's slot as removed, and the slot is then overwritten with a tombstone
+ * instead of copying the array. The array is compacted once tombstones
+ * outnumber the elements, so that removing is amortized O(1) apart from
+ * finding the element. As a result, {@link #get(int)} is O(n) and the list is
+ * meant to be iterated.
+ * <p/>
+ * {@link #removeIf(Predicate)} compacts the array at once rather than marking
+ * each slot, which suits removing many elements.
+ *
+ * @author Donghwan Kim
+ */
+class SnapshotList<E> extends AbstractList<E> {
+
+  private static final Object TOMBSTONE = new Object();
+  private static final Snapshot EMPTY = new Snapshot(new Slots(new Object[0], 0), 0, 0, -1);
+  private static final int INITIAL_CAPACITY = 4;
+
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(EMPTY);
+
+  // Returns the current snapshot after writing the tombstone of its removal
+  // if any. Every update starts from here, so by the time a snapshot is
+  // replaced, the tombstone of its removal has been written by any thread
+  private Snapshot current() {
+    Snapshot s = snapshot.get();
+    if (s.pending >= 0) {
+      s.slots.elements[s.pending] = TOMBSTONE;
+    }
+    return s;
+  }
+
+  @Override
+  public boolean add(E e) {
+    // The array where this thread has reserved a slot, which stays its own
+    // while the array is in use
+    Slots reservedSlots = null;
+    for (; ; ) {
+      Snapshot s = current();
+      int size = s.size;
+      Slots slots = s.slots;
+      if (size < slots.elements.length &&
+        (slots == reservedSlots || slots.reserved.compareAndSet(size, size + 1))) {
+        reservedSlots = slots;
+        // Only this thread can write to the reserved slot and publishing the
+        // snapshot makes the write visible to the readers
+        slots.elements[size] = e;
+        if (snapshot.compareAndSet(s, new Snapshot(slots, size + 1, s.removed, -1))) {
+          return true;
+        }
+        continue;
+      }
+      int live = s.size - s.removed;
+      Object[] elements = s.copy(-1, Math.max(INITIAL_CAPACITY, live << 1));
+      elements[live] = e;
+      if (snapshot.compareAndSet(s, new Snapshot(new Slots(elements, live + 1), live + 1, 0,
+        -1))) {
+        return true;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public E get(int index) {
+    Snapshot s = snapshot.get();
+    if (index >= 0) {
+      for (int i = 0, n = 0; i < s.size; i++) {
+        Object element = s.element(i);
+        if (element != TOMBSTONE && n++ == index) {
+          return (E) element;
+        }
+      }
+    }
+    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (s.size - s.removed));
+  }
+
+  @Override
+  public int size() {
+    Snapshot s = snapshot.get();
+    return s.size - s.removed;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    Snapshot s = snapshot.get();
+    for (int i = 0, n = 0; i < s.size; i++) {
+      Object element = s.element(i);
+      if (element != TOMBSTONE) {
+        if (o == null ? element == null : o.equals(element)) {
+          return n;
+        }
+        n++;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(o) >= 0;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    for (; ; ) {
+      Snapshot s = current();
+      int index = -1;
+      for (int i = 0; i < s.size; i++) {
+        Object element = s.slots.elements[i];
+        if (element != TOMBSTONE && (o == null ? element == null : o.equals(element))) {
+          index = i;
+          break;
+        }
+      }
+      if (index < 0) {
+        return false;
+      }
+      if (remove(s, index)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    for (; ; ) {
+      Snapshot s = current();
+      int index = -1;
+      for (int i = 0; i < s.size; i++) {
+        Object element = s.slots.elements[i];
+        if (element != TOMBSTONE && c.contains(element)) {
+          if (index >= 0) {
+            // More than one is removed by compacting at once
+            return removeIf(c::contains);
+          }
+          index = i;
+        }
+      }
+      if (index < 0) {
+        return false;
+      }
+      if (remove(s, index)) {
+        return true;
+      }
+    }
+  }
+
+  // Returns false if the snapshot has been replaced in the meantime
+  private boolean remove(Snapshot s, int index) {
+    Snapshot next = s.remove(index);
+    if (!snapshot.compareAndSet(s, next)) {
+      return false;
+    }
+    if (next.pending >= 0) {
+      next.slots.elements[index] = TOMBSTONE;
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public boolean removeIf(Predicate<? super E> filter) {
+    for (; ; ) {
+      Snapshot s = current();
+      Object[] elements = null;
+      int size = 0;
+      for (int i = 0; i < s.size; i++) {
+        Object element = s.slots.elements[i];
+        if (element == TOMBSTONE) {
+          continue;
+        }
+        if (filter.test((E) element)) {
+          if (elements == null) {
+            // Copies the elements kept so far
+            elements = new Object[Math.max(INITIAL_CAPACITY, (s.size - s.removed) << 1)];
+            for (int j = 0; j < i; j++) {
+              if (s.slots.elements[j] != TOMBSTONE) {
+                elements[size++] = s.slots.elements[j];
+              }
+            }
+          }
+        } else if (elements != null) {
+          elements[size++] = element;
+        }
+      }
+      if (elements == null) {
+        return false;
+      }
+      if (snapshot.compareAndSet(s, new Snapshot(new Slots(elements, size), size, 0, -1))) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void clear() {
+    snapshot.set(EMPTY);
+  }
+
+  /**
+   * Returns an iterator over the snapshot at the time of the call. It doesn't
+   * reflect any later modification except that an element removed in the
+   * meantime may be skipped, and it doesn't support {@code remove}.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    Snapshot s = snapshot.get();
+    Object[] elements = s.slots.elements;
+    int size = s.size;
+    int pending = s.pending;
+    return new Iterator<E>() {
+      int cursor;
+      // A slot is read once as it may become a tombstone in the meantime
+      Object next = advance();
+
+      // Returns the next element or TOMBSTONE if there is none
+      private Object advance() {
+        while (cursor < size) {
+          int i = cursor++;
+          Object element = elements[i];
+          if (element != TOMBSTONE && i != pending) {
+            return element;
+          }
+        }
+        return TOMBSTONE;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != TOMBSTONE;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public E next() {
+        if (next == TOMBSTONE) {
+          throw new NoSuchElementException();
+        }
+        Object element = next;
+        next = advance();
+        return (E) element;
+      }
+    };
+  }
+
+  private static class Slots {
+    final Object[] elements;
+    // The number of slots taken, which may be ahead of the published size
+    final AtomicInteger reserved;
+
+    Slots(Object[] elements, int reserved) {
+      this.elements = elements;
+      this.reserved = new AtomicInteger(reserved);
+    }
+  }
+
+  private static class Snapshot {
+    final Slots slots;
+    final int size;
+    // The number of removed slots below size
+    final int removed;
+    // The slot removed by this snapshot, whose tombstone may not have been
+    // written yet, or -1
+    final int pending;
+
+    Snapshot(Slots slots, int size, int removed, int pending) {
+      this.slots = slots;
+      this.size = size;
+      this.removed = removed;
+      this.pending = pending;
+    }
+
+    // Reads the element at the given slot, taking the pending removal into
+    // account
+    Object element(int i) {
+      return i == pending ? TOMBSTONE : slots.elements[i];
+    }
+
+    // Returns the snapshot without the element at the given slot
+    Snapshot remove(int index) {
+      int removed = this.removed + 1;
+      int live = size - removed;
+      if (removed > live) {
+        Object[] elements = copy(index, Math.max(INITIAL_CAPACITY, live << 1));
+        return new Snapshot(new Slots(elements, live), live, 0, -1);
+      }
+      return new Snapshot(slots, size, removed, index);
+    }
+
+    // Copies the elements except tombstones and the given slot to a new array
+    // of the given capacity
+    Object[] copy(int except, int capacity) {
+      Object[] elements = new Object[capacity];
+      for (int i = 0, n = 0; i < size; i++) {
+        Object element = element(i);
+        if (element != TOMBSTONE && i != except) {
+          elements[n++] = element;
+        }
+      }
+      return elements;
+    }
+  }
+
+}
@@ -19,6 +19,7 @@ import io.cettia.asity.action.Actions.Options;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -94,6 +95,38 @@ public abstract class ActionsTestBase {
     assertThat(action.memory(), contains("H"));
   }
 
+  @Test
+  public void testFireBatch() {
+    Actions<String> actions = null;
+    MemoryAction<String> action = null;
+    List<List<String>> batches = new ArrayList<>();
+    BatchAction<String> batchAction = list -> batches.add(new ArrayList<>(list));
+
+    // default
+    actions = createActions();
+    action = new MemoryAction<>();
+    actions.add(action).add(batchAction);
+    actions.fireBatch(Arrays.asList("A", "B")).fireBatch(Collections.emptyList());
+    assertThat(actions.fired(), is(true));
+    assertThat(action.memory(), contains("A", "B"));
+    assertThat(batches, is(Collections.singletonList(Arrays.asList("A", "B"))));
+
+    // once
+    actions = createActions(new Actions.Options().once(true));
+    action = new MemoryAction<>();
+    actions.add(action).fireBatch(Arrays.asList("A", "B")).fireBatch(Arrays.asList("C"));
+    assertThat(action.memory(), contains("A"));
+
+    // memory
+    actions = createActions(new Actions.Options().memory(true));
+    action = new MemoryAction<>();
+    batches.clear();
+    actions.fireBatch(Arrays.asList("A", "B"));
+    actions.add(action).add(batchAction);
+    assertThat(action.memory(), contains("B"));
+    assertThat(batches, is(Collections.singletonList(Collections.singletonList("B"))));
+  }
+
   @Test
   public void testDisable() {
     Actions<Void> actions = null;
@@ -161,6 +194,26 @@ public abstract class ActionsTestBase {
     assertThat(actions.has(actionB), is(false));
   }
 
+  @Test
+  public void testUnique() {
+    Actions<String> actions = createActions(new Actions.Options().unique(true));
+    MemoryAction<String> actionA = new MemoryAction<>();
+    MemoryAction<String> actionB = new MemoryAction<>();
+
+    actions.add(actionA).add(actionB).add(actionA);
+    assertThat(actions.has(actionA), is(true));
+    assertThat(actions.has(actionB), is(true));
+    actions.remove(actionA);
+    assertThat(actions.has(actionA), is(false));
+    actions.add(actionA).fire("A");
+    assertThat(actionA.memory(), contains("A"));
+    assertThat(actionB.memory(), contains("A"));
+    actions.empty();
+    assertThat(actions.has(actionB), is(false));
+    actions.add(actionB).add(actionB).fire("B");
+    assertThat(actionB.memory(), contains("A", "B"));
+  }
+
   protected abstract <T> Actions<T> createActions();
 
   protected abstract <T> Actions<T> createActions(Options options);
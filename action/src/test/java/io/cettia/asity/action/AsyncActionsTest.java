@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import io.cettia.asity.action.Actions.Options;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Donghwan Kim
+ */
+public class AsyncActionsTest extends ActionsTestBase {
+
+  // Runs the tests of the base class in the calling thread
+  @Override
+  protected <T> Actions<T> createActions() {
+    return new AsyncActions<>(Runnable::run);
+  }
+
+  @Override
+  protected <T> Actions<T> createActions(Options options) {
+    return new AsyncActions<>(Runnable::run, options);
+  }
+
+  @Test
+  public void testOrder() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Actions<Integer> actions = new AsyncActions<>(executor);
+      int count = 10000;
+      List<Integer> list = new ArrayList<>();
+      AtomicBoolean overlapped = new AtomicBoolean();
+      AtomicBoolean running = new AtomicBoolean();
+      CountDownLatch latch = new CountDownLatch(count);
+      actions.add(i -> {
+        if (!running.compareAndSet(false, true)) {
+          overlapped.set(true);
+        }
+        list.add(i);
+        running.set(false);
+        latch.countDown();
+      });
+      for (int i = 0; i < count; i++) {
+        actions.fire(i);
+      }
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+      assertThat(overlapped.get(), is(false));
+      for (int i = 0; i < count; i++) {
+        assertThat(list.get(i), is(i));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testOrderAcrossActions() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      // Like chunk and end events of an exchange
+      SerialExecutor serial = new SerialExecutor(executor);
+      Actions<Integer> chunkActions = new AsyncActions<>(serial);
+      Actions<Void> endActions = new AsyncActions<>(serial);
+      int count = 10000;
+      List<Integer> list = new ArrayList<>();
+      CountDownLatch latch = new CountDownLatch(1);
+      chunkActions.add(list::add);
+      endActions.add($ -> {
+        list.add(-1);
+        latch.countDown();
+      });
+      for (int i = 0; i < count; i++) {
+        chunkActions.fire(i);
+      }
+      endActions.fire();
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+      assertThat(list.size(), is(count + 1));
+      for (int i = 0; i < count; i++) {
+        assertThat(list.get(i), is(i));
+      }
+      assertThat(list.get(count), is(-1));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRejected() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    Actions<Integer> actions = new AsyncActions<>(new SerialExecutor(executor));
+    List<Integer> list = new ArrayList<>();
+    actions.add(list::add);
+    actions.fire(0).fire(1);
+    assertThat(list.size(), is(2));
+    assertThat(list.get(0), is(0));
+    assertThat(list.get(1), is(1));
+  }
+
+  @Test
+  public void testException() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Actions<Void> actions = new AsyncActions<>(executor);
+      CountDownLatch latch = new CountDownLatch(1);
+      actions.add($ -> {
+        throw new IllegalStateException();
+      });
+      actions.add($ -> latch.countDown());
+      actions.fire();
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testError() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Actions<Integer> actions = new AsyncActions<>(executor);
+      CountDownLatch latch = new CountDownLatch(1);
+      actions.add(i -> {
+        if (i == 0) {
+          throw new AssertionError();
+        }
+        latch.countDown();
+      });
+      actions.fire(0).fire(1);
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import io.cettia.asity.action.Actions.Options;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Donghwan Kim
+ */
+public class CompactActionsTest extends ActionsTestBase {
+
+  @Override
+  protected <T> Actions<T> createActions() {
+    return new CompactActions<>();
+  }
+
+  @Override
+  protected <T> Actions<T> createActions(Options options) {
+    return new CompactActions<>(options);
+  }
+
+  @Test
+  public void testFootprint() {
+    Action<Void> action = $ -> {
+    };
+    for (int count = 0; count < 3; count++) {
+      Actions<Void> simple = new SimpleActions<>();
+      Actions<Void> compact = new CompactActions<>();
+      for (int i = 0; i < count; i++) {
+        simple.add(action);
+        compact.add(action);
+      }
+      // An exchange and a socket hold a few of these per connection
+      assertThat(footprint(compact), lessThan(footprint(simple)));
+    }
+  }
+
+  private static long footprint(Object object) {
+    return GraphLayout.parseInstance(object).totalSize();
+  }
+
+}
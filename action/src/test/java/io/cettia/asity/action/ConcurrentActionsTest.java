@@ -16,6 +16,14 @@
 package io.cettia.asity.action;
 
 import io.cettia.asity.action.Actions.Options;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 /**
  * @author Donghwan Kim
@@ -32,4 +40,35 @@ public class ConcurrentActionsTest extends ActionsTestBase {
     return new ConcurrentActions<>(options);
   }
 
+  @Test
+  public void testConcurrentUniqueAddAndRemove() throws InterruptedException {
+    Actions<Void> actions = createActions(new Actions.Options().unique(true));
+    Action<Void> action = $ -> {};
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        for (int j = 0; j < 10000; j++) {
+          actions.add(action);
+          actions.remove(action);
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    // The list and the index should agree
+    assertThat(actions.has(action), is(false));
+    assertThat(actions.has(), is(false));
+  }
+
 }
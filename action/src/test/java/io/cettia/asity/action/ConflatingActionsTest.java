@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import io.cettia.asity.action.Actions.Options;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Donghwan Kim
+ */
+public class ConflatingActionsTest extends ActionsTestBase {
+
+  // Runs the tests of the base class in the calling thread
+  @Override
+  protected <T> Actions<T> createActions() {
+    return new ConflatingActions<>(Runnable::run);
+  }
+
+  @Override
+  protected <T> Actions<T> createActions(Options options) {
+    return new ConflatingActions<>(Runnable::run, options);
+  }
+
+  @Test
+  public void testConflation() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Actions<Integer> actions = new ConflatingActions<>(executor);
+      List<Integer> list = new CopyOnWriteArrayList<>();
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch done = new CountDownLatch(1);
+      actions.add(i -> {
+        list.add(i);
+        if (i == 0) {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        if (i == 100) {
+          done.countDown();
+        }
+      });
+      actions.fire(0);
+      assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+      // While the first value is being delivered, only the latest one survives
+      for (int i = 1; i <= 100; i++) {
+        actions.fire(i);
+      }
+      release.countDown();
+      assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+      assertThat(list, contains(0, 100));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testError() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Actions<Integer> actions = new ConflatingActions<>(executor);
+      CountDownLatch latch = new CountDownLatch(1);
+      actions.add(i -> {
+        if (i == 0) {
+          throw new AssertionError();
+        }
+        latch.countDown();
+      });
+      actions.fire(0);
+      // Fires until the one after the error gets delivered
+      for (int i = 1; latch.getCount() > 0 && i < 1000; i++) {
+        actions.fire(i);
+        Thread.sleep(10);
+      }
+      assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
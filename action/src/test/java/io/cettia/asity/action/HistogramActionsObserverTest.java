@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Donghwan Kim
+ */
+public class HistogramActionsObserverTest {
+
+  @After
+  public void tearDown() {
+    AbstractActions.setObserver(null);
+  }
+
+  @Test
+  public void testObserve() {
+    HistogramActionsObserver observer = new HistogramActionsObserver();
+    AbstractActions.setObserver(observer);
+
+    Actions<String> actions = new SimpleActions<>();
+    Action<String> fast = $ -> {
+    };
+    Action<String> failing = $ -> {
+      throw new IllegalStateException();
+    };
+    actions.add(fast).fire("A").fireBatch(Arrays.asList("B", "C"));
+    actions.add(failing);
+    try {
+      actions.fire("D");
+      fail();
+    } catch (IllegalStateException e) {
+    }
+
+    assertThat(observer.fireCount(), is(3L));
+    HistogramActionsObserver.Histogram histogram = observer.histograms().get(fast.getClass());
+    assertThat(histogram.count(), is(4L));
+    assertThat(histogram.errorCount(), is(0L));
+    assertThat(histogram.percentileNanos(50), lessThanOrEqualTo(histogram.maxNanos()));
+    assertThat(histogram.percentileNanos(100), greaterThanOrEqualTo(histogram.percentileNanos(50)));
+    histogram = observer.histograms().get(failing.getClass());
+    assertThat(histogram.count(), is(1L));
+    assertThat(histogram.errorCount(), is(1L));
+
+    AbstractActions.setObserver(null);
+    actions.remove(failing).fire("E");
+    assertThat(observer.fireCount(), is(3L));
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.action;
+
+import io.cettia.asity.action.Actions.Options;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Donghwan Kim
+ */
+public class LockFreeActionsTest extends ActionsTestBase {
+
+  @Override
+  protected <T> Actions<T> createActions() {
+    return new LockFreeActions<>();
+  }
+
+  @Override
+  protected <T> Actions<T> createActions(Options options) {
+    return new LockFreeActions<>(options);
+  }
+
+  @Test
+  public void testRemoveKeepsOrder() {
+    Actions<Void> actions = createActions();
+    List<Integer> fired = new ArrayList<>();
+    List<Action<Void>> added = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      int number = i;
+      Action<Void> action = $ -> fired.add(number);
+      actions.add(action);
+      added.add(action);
+    }
+    // Removes enough to compact the list in between
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      if (i % 3 == 0) {
+        expected.add(i);
+      } else {
+        actions.remove(added.get(i));
+      }
+    }
+    actions.fire();
+    assertThat(fired, is(expected));
+  }
+
+  @Test
+  public void testConcurrentAddAndRemove() throws InterruptedException {
+    Actions<Void> actions = createActions();
+    AtomicInteger count = new AtomicInteger();
+    int threads = 8;
+    int perThread = 1000;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      Thread worker = new Thread(() -> {
+        List<Action<Void>> added = new ArrayList<>();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        for (int j = 0; j < perThread; j++) {
+          Action<Void> action = $ -> count.incrementAndGet();
+          actions.add(action);
+          added.add(action);
+          actions.fire();
+        }
+        // Removes every other action
+        for (int j = 0; j < added.size(); j += 2) {
+          actions.remove(added.get(j));
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    count.set(0);
+    actions.fire();
+    assertThat(count.get(), is(threads * perThread / 2));
+  }
+
+}
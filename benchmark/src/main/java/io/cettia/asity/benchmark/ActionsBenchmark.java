@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.benchmark;
+
+import io.cettia.asity.action.Action;
+import io.cettia.asity.action.Actions;
+import io.cettia.asity.action.CompactActions;
+import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
+import io.cettia.asity.action.SimpleActions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the basic operations of {@link Actions} implementations in a single
+ * thread, which is how an exchange or a socket uses its actions.
+ * <p/>
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar ActionsBenchmark -prof gc
+ * </pre>
+ *
+ * @author Donghwan Kim
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ActionsBenchmark {
+
+  @Param({"simple", "compact", "concurrent", "lock-free"})
+  public String type;
+  @Param({"1", "4", "16"})
+  public int size;
+
+  private final Action<Object> action = new Counter();
+  private Actions<Object> actions;
+
+  @Setup
+  public void setUp() {
+    actions = create();
+    for (int i = 0; i < size; i++) {
+      actions.add(new Counter());
+    }
+  }
+
+  private Actions<Object> create() {
+    switch (type) {
+      case "simple":
+        return new SimpleActions<>();
+      case "compact":
+        return new CompactActions<>();
+      case "concurrent":
+        return new ConcurrentActions<>();
+      case "lock-free":
+        return new LockFreeActions<>();
+      default:
+        throw new IllegalArgumentException(type);
+    }
+  }
+
+  @Benchmark
+  public Actions<Object> fire() {
+    return actions.fire("data");
+  }
+
+  @Benchmark
+  public Actions<Object> addAndRemove() {
+    return actions.add(action).remove(action);
+  }
+
+  // The lifecycle of an event of a connection
+  @Benchmark
+  public Actions<Object> createAddAndFire() {
+    Actions<Object> actions = create();
+    for (int i = 0; i < size; i++) {
+      actions.add(action);
+    }
+    return actions.fire("data");
+  }
+
+  static class Counter implements Action<Object> {
+    int count;
+
+    @Override
+    public void on(Object object) {
+      count++;
+    }
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.benchmark;
+
+import io.cettia.asity.action.Action;
+import io.cettia.asity.action.Actions;
+import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares thread-safe {@link Actions} implementations shared by multiple
+ * threads like the ones held by bridges to fire {@code onhttp} and
+ * {@code onwebsocket}.
+ * <p/>
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar ConcurrentActionsBenchmark
+ * </pre>
+ *
+ * @author Donghwan Kim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentActionsBenchmark {
+
+  @Param({"concurrent", "lock-free"})
+  public String type;
+  @Param({"1", "16", "256"})
+  public int size;
+
+  private Actions<Object> actions;
+
+  @Setup
+  public void setUp() {
+    switch (type) {
+      case "concurrent":
+        actions = new ConcurrentActions<>();
+        break;
+      case "lock-free":
+        actions = new LockFreeActions<>();
+        break;
+      default:
+        throw new IllegalArgumentException(type);
+    }
+    for (int i = 0; i < size; i++) {
+      actions.add(new Counter());
+    }
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Actions<Object> fire() {
+    return actions.fire("data");
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Actions<Object> addAndRemove(ThreadState state) {
+    return actions.add(state.action).remove(state.action);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void mixed(ThreadState state, Blackhole blackhole) {
+    actions.add(state.action);
+    blackhole.consume(actions.fire("data"));
+    actions.remove(state.action);
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final Action<Object> action = new Counter();
+  }
+
+  static class Counter implements Action<Object> {
+    int count;
+
+    @Override
+    public void on(Object object) {
+      count++;
+    }
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.benchmark;
+
+import io.cettia.asity.action.Action;
+import io.cettia.asity.http.AbstractServerHttpExchange;
+import io.cettia.asity.http.ServerHttpExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the lifecycle of {@link AbstractServerHttpExchange}
+ * without the cost of any underlying server. Run it with the GC profiler to
+ * see the allocation per request.
+ * <p/>
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar ServerHttpExchangeBenchmark -prof gc
+ * </pre>
+ *
+ * @author Donghwan Kim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServerHttpExchangeBenchmark {
+
+  static final int MESSAGES = 100;
+  static final String MESSAGE = "data: {\"type\":\"tick\",\"value\":42}\n\n";
+
+  private final Action<Void> action = $ -> {
+  };
+
+  @Benchmark
+  public ServerHttpExchange plaintext() {
+    return new StubServerHttpExchange()
+      .setHeader("content-type", "text/plain")
+      .end("Hello, World!");
+  }
+
+  @Benchmark
+  public ServerHttpExchange plaintextWithListeners() {
+    return new StubServerHttpExchange()
+      .onerror(throwable -> {
+      })
+      .onclose(action)
+      .setHeader("content-type", "text/plain")
+      .end("Hello, World!");
+  }
+
+  @Benchmark
+  public ServerHttpExchange writeText(Body body) {
+    return new StubServerHttpExchange()
+      .setHeader("content-type", "text/plain; charset=utf-8")
+      .end(body.text);
+  }
+
+  // Like a stream of server-sent events
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public ServerHttpExchange streamText() {
+    ServerHttpExchange http = new StubServerHttpExchange()
+      .setHeader("content-type", "text/event-stream; charset=utf-8");
+    for (int i = 0; i < MESSAGES; i++) {
+      http.write(MESSAGE);
+    }
+    return http.end();
+  }
+
+  // A charset without a fast path
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public ServerHttpExchange streamTextWithCharset() {
+    ServerHttpExchange http = new StubServerHttpExchange()
+      .setHeader("content-type", "text/event-stream; charset=utf-16");
+    for (int i = 0; i < MESSAGES; i++) {
+      http.write(MESSAGE);
+    }
+    return http.end();
+  }
+
+  @Benchmark
+  public ServerHttpExchange writeBinary(Body body) {
+    ServerHttpExchange http = new StubServerHttpExchange()
+      .setHeader("content-type", "application/octet-stream");
+    for (ByteBuffer chunk : body.chunks) {
+      http.write(chunk.duplicate());
+    }
+    return http.end();
+  }
+
+  @Benchmark
+  public void readChunks(Body body, Blackhole blackhole) {
+    new StubServerHttpExchange("application/octet-stream", body.chunks)
+      .onchunk(blackhole::consume)
+      .read();
+  }
+
+  @Benchmark
+  public void readTextBody(Body body, Blackhole blackhole) {
+    new StubServerHttpExchange("text/plain; charset=utf-8", body.chunks)
+      .onbody(blackhole::consume)
+      .read();
+  }
+
+  @Benchmark
+  public void readBinaryBody(Body body, Blackhole blackhole) {
+    new StubServerHttpExchange("application/octet-stream", body.chunks)
+      .onbody(blackhole::consume)
+      .read();
+  }
+
+  // Without content-length, the body size is unknown until the end
+  @Benchmark
+  public void readChunkedBinaryBody(Body body, Blackhole blackhole) {
+    new StubServerHttpExchange("application/octet-stream", body.chunks, false)
+      .onbody(blackhole::consume)
+      .read();
+  }
+
+  @State(Scope.Benchmark)
+  public static class Body {
+    static final int CHUNK_SIZE = 8192;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    List<ByteBuffer> chunks;
+    String text;
+
+    @Setup
+    public void setUp() {
+      byte[] bytes = new byte[size];
+      Arrays.fill(bytes, (byte) 'a');
+      chunks = new ArrayList<>();
+      for (int offset = 0; offset < size; offset += CHUNK_SIZE) {
+        chunks.add(ByteBuffer.wrap(bytes, offset, Math.min(CHUNK_SIZE, size - offset)).slice());
+      }
+      text = new String(bytes);
+    }
+  }
+
+}
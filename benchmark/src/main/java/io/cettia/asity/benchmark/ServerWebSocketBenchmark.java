@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.benchmark;
+
+import io.cettia.asity.websocket.AbstractServerWebSocket;
+import io.cettia.asity.websocket.ServerWebSocket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of sending and dispatching frames in
+ * {@link AbstractServerWebSocket} without the cost of any underlying server,
+ * and the cost of opening a socket.
+ * <p/>
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar ServerWebSocketBenchmark -prof gc
+ * </pre>
+ *
+ * @author Donghwan Kim
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServerWebSocketBenchmark {
+
+  private final String text = "{\"type\":\"message\",\"data\":\"Hello, World!\"}";
+  private final ByteBuffer binary = ByteBuffer.wrap(text.getBytes());
+  private StubServerWebSocket ws;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    ws = new StubServerWebSocket();
+    ws.ontext(blackhole::consume).onbinary(blackhole::consume);
+  }
+
+  @Benchmark
+  public ServerWebSocket open(Blackhole blackhole) {
+    return new StubServerWebSocket()
+      .ontext(blackhole::consume)
+      .onclose(blackhole::consume)
+      .onerror(blackhole::consume);
+  }
+
+  @Benchmark
+  public ServerWebSocket sendText() {
+    return ws.send(text);
+  }
+
+  @Benchmark
+  public ServerWebSocket sendBinary() {
+    return ws.send(binary.duplicate());
+  }
+
+  @Benchmark
+  public void receiveText() {
+    ws.receive(text);
+  }
+
+  @Benchmark
+  public void receiveBinary() {
+    ws.receive(binary.duplicate());
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.benchmark;
+
+import io.cettia.asity.action.BatchAction;
+import io.cettia.asity.http.AbstractServerHttpExchange;
+import io.cettia.asity.http.HttpMethod;
+import io.cettia.asity.http.HttpStatus;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link AbstractServerHttpExchange} without an underlying server. The request
+ * body is delivered from the given chunks at once when read, and the response
+ * is discarded.
+ *
+ * @author Donghwan Kim
+ */
+class StubServerHttpExchange extends AbstractServerHttpExchange {
+
+  private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private final List<ByteBuffer> chunks;
+
+  StubServerHttpExchange() {
+    this(null, Collections.emptyList());
+  }
+
+  StubServerHttpExchange(String contentType, List<ByteBuffer> chunks) {
+    this(contentType, chunks, true);
+  }
+
+  /**
+   * @param contentLength whether to send the {@code content-length} header,
+   *                      otherwise the body is like a chunked one.
+   */
+  StubServerHttpExchange(String contentType, List<ByteBuffer> chunks, boolean contentLength) {
+    this.chunks = chunks;
+    if (contentType != null) {
+      headers.put("content-type", Collections.singletonList(contentType));
+    }
+    if (contentLength && !chunks.isEmpty()) {
+      long length = 0;
+      for (ByteBuffer chunk : chunks) {
+        length += chunk.remaining();
+      }
+      headers.put("content-length", Collections.singletonList(Long.toString(length)));
+    }
+  }
+
+  @Override
+  public String uri() {
+    return "/";
+  }
+
+  @Override
+  public HttpMethod method() {
+    return chunks.isEmpty() ? HttpMethod.GET : HttpMethod.POST;
+  }
+
+  @Override
+  protected Set<String> doHeaderNames() {
+    return headers.keySet();
+  }
+
+  @Override
+  protected List<String> doHeaders(String name) {
+    return headers.getOrDefault(name, Collections.emptyList());
+  }
+
+  @Override
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
+    for (ByteBuffer chunk : chunks) {
+      chunkAction.on(chunk.duplicate());
+    }
+    fireEnd();
+  }
+
+  @Override
+  protected void doPause() {
+  }
+
+  @Override
+  protected void doResume() {
+  }
+
+  @Override
+  protected void doSetStatus(HttpStatus status) {
+  }
+
+  @Override
+  protected void doSetHeader(String name, String value) {
+  }
+
+  @Override
+  protected void doWrite(ByteBuffer byteBuffer) {
+  }
+
+  @Override
+  protected boolean doIsWritable() {
+    return true;
+  }
+
+  @Override
+  protected void doFlush() {
+  }
+
+  @Override
+  protected void doEnd() {
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> clazz) {
+    return null;
+  }
+
+}
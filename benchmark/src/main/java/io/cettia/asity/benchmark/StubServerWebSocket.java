@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.benchmark;
+
+import io.cettia.asity.websocket.AbstractServerWebSocket;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link AbstractServerWebSocket} without an underlying server. Frames to
+ * receive are given through {@link #receive(String)} and
+ * {@link #receive(ByteBuffer)}, and sent frames are discarded.
+ *
+ * @author Donghwan Kim
+ */
+class StubServerWebSocket extends AbstractServerWebSocket {
+
+  void receive(String data) {
+    fireText(data);
+  }
+
+  void receive(ByteBuffer data) {
+    fireBinary(data);
+  }
+
+  @Override
+  public String uri() {
+    return "/";
+  }
+
+  @Override
+  protected Set<String> doHeaderNames() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  protected List<String> doHeaders(String name) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  protected void doSend(String data) {
+  }
+
+  @Override
+  protected void doSend(ByteBuffer byteBuffer) {
+  }
+
+  @Override
+  protected void doClose() {
+    fireClose();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> clazz) {
+    return null;
+  }
+
+}
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.atmosphere2;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import io.cettia.asity.websocket.ServerWebSocket;
 import org.atmosphere.cpr.AtmosphereResource;
@@ -53,8 +53,8 @@ import java.io.IOException;
 @SuppressWarnings("serial")
 public class AsityAtmosphereServlet extends AtmosphereServlet {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
 
   @Override
   public void init(ServletConfig sc) throws ServletException {
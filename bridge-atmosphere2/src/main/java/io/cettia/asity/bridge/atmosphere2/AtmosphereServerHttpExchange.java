@@ -16,8 +16,9 @@
 package io.cettia.asity.bridge.atmosphere2;
 
 import io.cettia.asity.action.Action;
-import io.cettia.asity.action.Actions;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.http.AbstractServerHttpExchange;
+import io.cettia.asity.http.BufferPool;
 import io.cettia.asity.http.HttpMethod;
 import io.cettia.asity.http.HttpStatus;
 import io.cettia.asity.http.ServerHttpExchange;
@@ -31,13 +32,22 @@ import org.atmosphere.util.ExecutorsFactory;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.Executor;
 
 /**
@@ -50,6 +60,7 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
   private final AtmosphereResource resource;
   private final AtmosphereResponse response;
   private final AtmosphereRequest request;
+  private BodyReader bodyReader;
 
   public AtmosphereServerHttpExchange(AtmosphereResource resource) {
     this.resource = resource.suspend();
@@ -59,17 +70,17 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
     resource.addEventListener(new AtmosphereResourceEventListenerAdapter() {
       @Override
       public void onDisconnect(AtmosphereResourceEvent event) {
-        closeActions.fire();
+        fireClose();
       }
 
       @Override
       public void onClose(AtmosphereResourceEvent event) {
-        closeActions.fire();
+        fireClose();
       }
 
       @Override
       public void onThrowable(AtmosphereResourceEvent event) {
-        errorActions.fire(event.throwable());
+        fireError(event.throwable());
       }
     });
   }
@@ -89,34 +100,49 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return new LinkedHashSet(Collections.list(request.getHeaderNames()));
   }
 
   @SuppressWarnings("unchecked")
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return Collections.list(request.getHeaders(name));
   }
 
   @Override
-  protected void doRead(Action<ByteBuffer> chunkAction) {
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
     try {
       ServletInputStream input = request.getInputStream();
       int version = getServletMinorVersion();
-      BodyReader bodyReader;
       if (version > 0) {
         // 3.1+ asynchronous
-        bodyReader = new AsyncBodyReader(input, chunkAction, endActions, errorActions);
+        bodyReader = new AsyncBodyReader(input, chunkAction, bufferPool(), $ -> fireEnd(),
+          this::fireError);
       } else {
         // 3.0 synchronous
         Executor executor = ExecutorsFactory.getAsyncOperationExecutor(resource
           .getAtmosphereConfig(), "Asity");
-        bodyReader = new SyncBodyReader(input, chunkAction, endActions, errorActions, executor);
+        bodyReader = new SyncBodyReader(input, chunkAction, bufferPool(), $ -> fireEnd(),
+          this::fireError, executor);
       }
       bodyReader.start();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
+    }
+  }
+
+  @Override
+  protected void doPause() {
+    if (bodyReader != null) {
+      bodyReader.pause();
+    }
+  }
+
+  @Override
+  protected void doResume() {
+    if (bodyReader != null) {
+      bodyReader.resume();
     }
   }
 
@@ -145,14 +171,61 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
 
   @Override
   protected void doWrite(ByteBuffer byteBuffer) {
+    // Written through Atmosphere's own stream so that its interceptors apply,
+    // which blocks as the stream doesn't support a write listener
     try {
-      byte[] bytes = new byte[byteBuffer.remaining()];
-      byteBuffer.get(bytes);
       OutputStream outputStream = response.getOutputStream();
-      outputStream.write(bytes);
-      outputStream.flush();
+      if (byteBuffer.hasArray()) {
+        outputStream.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+          byteBuffer.remaining());
+      } else {
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        outputStream.write(bytes);
+      }
+    } catch (IOException e) {
+      fireError(e);
+    }
+  }
+
+  // Streams the file to the output stream through a small buffer of the
+  // file channel rather than mapping it
+  @Override
+  protected void doSendFile(Path path, long offset, long length) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      OutputStream outputStream = response.getOutputStream();
+      WritableByteChannel target = outputStream instanceof WritableByteChannel ?
+        (WritableByteChannel) outputStream :
+        Channels.newChannel(outputStream);
+      long end = offset + length;
+      for (long position = offset; position < end; ) {
+        long transferred = channel.transferTo(position, end - position, target);
+        if (transferred <= 0) {
+          throw new EOFException("The file has been truncated");
+        }
+        position += transferred;
+      }
     } catch (IOException e) {
-      errorActions.fire(e);
+      // The response can't be completed as content-length has been set
+      fireError(e);
+      doAbort();
+      return;
+    }
+    doEnd();
+  }
+
+  // Writes to the output stream block until done so nothing piles up
+  @Override
+  protected boolean doIsWritable() {
+    return true;
+  }
+
+  @Override
+  protected void doFlush() {
+    try {
+      response.getOutputStream().flush();
+    } catch (IOException e) {
+      fireError(e);
     }
   }
 
@@ -161,6 +234,15 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
     resource.resume();
   }
 
+  @Override
+  protected void doAbort() {
+    try {
+      resource.close();
+    } catch (IOException e) {
+      fireError(e);
+    }
+  }
+
   /**
    * {@link AtmosphereResource} is available.
    */
@@ -170,40 +252,77 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   private abstract static class BodyReader {
-    final ServletInputStream input;
-    final Action<ByteBuffer> chunkAction;
-    final Actions<Void> endActions;
-    final Actions<Throwable> errorActions;
+    static final int MAX_BATCH_SIZE = 16;
 
-    public BodyReader(ServletInputStream input, Action<ByteBuffer> chunkAction, Actions<Void>
-      endActions, Actions<Throwable> errorActions) {
+    final ServletInputStream input;
+    final BatchAction<ByteBuffer> chunkAction;
+    final BufferPool bufferPool;
+    final Action<Void> endAction;
+    final Action<Throwable> errorAction;
+    volatile boolean paused;
+
+    public BodyReader(ServletInputStream input, BatchAction<ByteBuffer> chunkAction, BufferPool
+      bufferPool, Action<Void> endAction, Action<Throwable> errorAction) {
       this.input = input;
       this.chunkAction = chunkAction;
-      this.endActions = endActions;
-      this.errorActions = errorActions;
+      this.bufferPool = bufferPool;
+      this.endAction = endAction;
+      this.errorAction = errorAction;
     }
 
     abstract void start();
 
+    void pause() {
+      paused = true;
+    }
+
+    abstract void resume();
+
     void read() throws IOException {
-      int bytesRead = -1;
-      byte buffer[] = new byte[8192];
-      while (ready() && (bytesRead = input.read(buffer)) != -1) {
-        chunkAction.on(ByteBuffer.wrap(buffer, 0, bytesRead));
+      // Chunks read at once are delivered together up to MAX_BATCH_SIZE
+      List<ByteBuffer> chunks = new ArrayList<>();
+      while (!paused && ready()) {
+        ByteBuffer buffer = bufferPool.acquire();
+        int bytesRead = input.read(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+        if (bytesRead == -1) {
+          bufferPool.release(buffer);
+          break;
+        }
+        buffer.limit(buffer.position() + bytesRead);
+        chunks.add(buffer);
+        if (chunks.size() == MAX_BATCH_SIZE) {
+          deliver(chunks);
+        }
+      }
+      if (!chunks.isEmpty()) {
+        deliver(chunks);
       }
     }
 
+    // The buffers go back to the pool once the action returns
+    private void deliver(List<ByteBuffer> chunks) {
+      chunkAction.onBatch(chunks);
+      for (ByteBuffer chunk : chunks) {
+        bufferPool.release(chunk);
+      }
+      chunks.clear();
+    }
+
     abstract boolean ready();
 
     void end() {
-      endActions.fire();
+      endAction.on(null);
     }
   }
 
   private static class AsyncBodyReader extends BodyReader {
-    public AsyncBodyReader(ServletInputStream input, Action<ByteBuffer> action, Actions<Void>
-      endActions, Actions<Throwable> errorActions) {
-      super(input, action, endActions, errorActions);
+    // Whether the reading has stopped for the pause and is owed to resume
+    private final AtomicBoolean suspended = new AtomicBoolean();
+
+    public AsyncBodyReader(ServletInputStream input, BatchAction<ByteBuffer> action, BufferPool
+      bufferPool, Action<Void> endAction, Action<Throwable> errorAction) {
+      super(input, action, bufferPool, endAction, errorAction);
     }
 
     @Override
@@ -211,21 +330,54 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
       input.setReadListener(new ReadListener() {
         @Override
         public void onDataAvailable() throws IOException {
-          read();
+          readUntilPaused();
         }
 
         @Override
         public void onAllDataRead() throws IOException {
-          end();
+          // The container may call it while the resuming thread is still
+          // delivering the last chunks
+          synchronized (AsyncBodyReader.this) {
+            end();
+          }
         }
 
         @Override
         public void onError(Throwable t) {
-          errorActions.fire(t);
+          errorAction.on(t);
         }
       });
     }
 
+    @Override
+    void resume() {
+      paused = false;
+      // The container doesn't call onDataAvailable again until isReady
+      // returns false, so the reading stopped by the pause continues here
+      if (suspended.compareAndSet(true, false)) {
+        try {
+          readUntilPaused();
+        } catch (IOException e) {
+          errorAction.on(e);
+        }
+      }
+    }
+
+    // Once isReady returns false, the container may call onDataAvailable on
+    // another thread before the resuming thread delivers the chunks read
+    private synchronized void readUntilPaused() throws IOException {
+      read();
+      while (paused) {
+        suspended.set(true);
+        // If resume has been called in the meantime, whichever takes the flag
+        // back goes on reading
+        if (paused || !suspended.compareAndSet(true, false)) {
+          return;
+        }
+        read();
+      }
+    }
+
     @Override
     boolean ready() {
       return input.isReady();
@@ -235,9 +387,9 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
   private static class SyncBodyReader extends BodyReader {
     private Executor executor;
 
-    public SyncBodyReader(ServletInputStream input, Action<ByteBuffer> action, Actions<Void>
-      endActions, Actions<Throwable> errorActions, Executor executor) {
-      super(input, action, endActions, errorActions);
+    public SyncBodyReader(ServletInputStream input, BatchAction<ByteBuffer> action, BufferPool
+      bufferPool, Action<Void> endAction, Action<Throwable> errorAction, Executor executor) {
+      super(input, action, bufferPool, endAction, errorAction);
       this.executor = executor;
     }
 
@@ -245,20 +397,43 @@ public class AtmosphereServerHttpExchange extends AbstractServerHttpExchange {
     void start() {
       executor.execute(() -> {
         try {
-          read();
+          do {
+            read();
+          } while (awaitResume());
           end();
         } catch (IOException e) {
-          errorActions.fire(e);
+          errorAction.on(e);
         }
       });
     }
 
+    // Blocks the reading thread while paused as reading is blocking anyway
+    private synchronized boolean awaitResume() throws InterruptedIOException {
+      if (!paused) {
+        return false;
+      }
+      try {
+        while (paused) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      }
+      return true;
+    }
+
+    @Override
+    synchronized void resume() {
+      paused = false;
+      notifyAll();
+    }
+
     @Override
     boolean ready() {
       try {
         return input.available() > 0;
       } catch (IOException e) {
-        errorActions.fire(e);
+        errorAction.on(e);
         return false;
       }
     }
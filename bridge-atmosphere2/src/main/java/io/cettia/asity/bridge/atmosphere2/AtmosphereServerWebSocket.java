@@ -47,17 +47,17 @@ public class AtmosphereServerWebSocket extends AbstractServerWebSocket {
     resource.addEventListener(new AtmosphereResourceEventListenerAdapter() {
       @Override
       public void onClose(AtmosphereResourceEvent event) {
-        closeActions.fire();
+        fireClose();
       }
 
       @Override
       public void onDisconnect(AtmosphereResourceEvent event) {
-        closeActions.fire();
+        fireClose();
       }
 
       @Override
       public void onThrowable(AtmosphereResourceEvent event) {
-        errorActions.fire(event.throwable());
+        fireError(event.throwable());
       }
     })
     .addEventListener(new WebSocketEventListenerAdapter() {
@@ -66,12 +66,12 @@ public class AtmosphereServerWebSocket extends AbstractServerWebSocket {
       public void onMessage(WebSocketEvent event) {
         Object message = event.message();
         if (message instanceof String) {
-          textActions.fire((String) message);
+          fireText((String) message);
         } else if (message instanceof byte[]) {
-          binaryActions.fire(ByteBuffer.wrap((byte[]) message));
+          fireBinary(ByteBuffer.wrap((byte[]) message));
         } else {
           // Just to be sure
-          errorActions.fire(new IllegalStateException("Message is neither String nor byte[]"));
+          fireError(new IllegalStateException("Message is neither String nor byte[]"));
         }
       }
     });
@@ -87,13 +87,13 @@ public class AtmosphereServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return new LinkedHashSet(Collections.list(resource.getRequest().getHeaderNames()));
   }
 
   @SuppressWarnings("unchecked")
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return Collections.list(resource.getRequest().getHeaders(name));
   }
 
@@ -105,7 +105,7 @@ public class AtmosphereServerWebSocket extends AbstractServerWebSocket {
       writer.print(data);
       writer.flush();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
@@ -119,7 +119,7 @@ public class AtmosphereServerWebSocket extends AbstractServerWebSocket {
       outputStream.write(bytes);
       outputStream.flush();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
@@ -128,7 +128,7 @@ public class AtmosphereServerWebSocket extends AbstractServerWebSocket {
     try {
       resource.close();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
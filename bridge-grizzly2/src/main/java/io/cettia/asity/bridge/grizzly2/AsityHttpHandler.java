@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.grizzly2;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import org.glassfish.grizzly.http.server.HttpHandler;
 import org.glassfish.grizzly.http.server.Request;
@@ -37,7 +37,7 @@ import org.glassfish.grizzly.http.server.Response;
  */
 public class AsityHttpHandler extends HttpHandler {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
 
   @Override
   public void service(Request request, Response response) throws Exception {
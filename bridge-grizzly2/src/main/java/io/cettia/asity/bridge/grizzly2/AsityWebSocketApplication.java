@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.grizzly2;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 import org.glassfish.grizzly.websockets.DataFrame;
 import org.glassfish.grizzly.websockets.DefaultWebSocket;
@@ -43,7 +43,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class AsityWebSocketApplication extends WebSocketApplication {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
   private Map<WebSocket, GrizzlyServerWebSocket> sockets = new ConcurrentHashMap<>();
 
   @Override
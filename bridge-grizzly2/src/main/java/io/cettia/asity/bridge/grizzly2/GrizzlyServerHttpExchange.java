@@ -15,26 +15,36 @@
  */
 package io.cettia.asity.bridge.grizzly2;
 
-import io.cettia.asity.action.Action;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.http.AbstractServerHttpExchange;
+import io.cettia.asity.http.BufferPool;
 import io.cettia.asity.http.HttpMethod;
 import io.cettia.asity.http.HttpStatus;
 import io.cettia.asity.http.ServerHttpExchange;
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.CloseListener;
 import org.glassfish.grizzly.Closeable;
+import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.ICloseType;
 import org.glassfish.grizzly.ReadHandler;
+import org.glassfish.grizzly.WriteHandler;
+import org.glassfish.grizzly.WriteResult;
 import org.glassfish.grizzly.http.io.NIOInputStream;
+import org.glassfish.grizzly.http.io.NIOOutputStream;
 import org.glassfish.grizzly.http.server.Request;
 import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * {@link ServerHttpExchange} for Grizzly 2.
@@ -45,12 +55,18 @@ public class GrizzlyServerHttpExchange extends AbstractServerHttpExchange {
 
   private final Request request;
   private final Response response;
+  // Whether the read handler stopped waiting for data while paused
+  private final AtomicBoolean suspended = new AtomicBoolean();
+  private volatile boolean paused;
+  private ReadHandler readHandler;
+  // Set by the thread checking the writability and cleared by the I/O thread
+  private final AtomicBoolean notifyingWritable = new AtomicBoolean();
 
   @SuppressWarnings("deprecation")
   public GrizzlyServerHttpExchange(Request request, Response response) {
     this.request = request;
     this.response = response;
-    request.getContext().getConnection().addCloseListener((CloseListener<Closeable, ICloseType>) (closeable, type) -> closeActions.fire());
+    request.getContext().getConnection().addCloseListener((CloseListener<Closeable, ICloseType>) (closeable, type) -> fireClose());
     // To detect closed connection
     // From https://github.com/GrizzlyNIO/grizzly-mirror/blob/2_3_17/modules/comet/src/main/java
     // /org/glassfish/grizzly/comet/CometContext.java#L250
@@ -73,7 +89,7 @@ public class GrizzlyServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     Set<String> headerNames = new LinkedHashSet<>();
     for (String headerName : request.getHeaderNames()) {
       headerNames.add(headerName);
@@ -82,7 +98,7 @@ public class GrizzlyServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     List<String> headers = new ArrayList<String>();
     for (String header : request.getHeaders(name)) {
       headers.add(header);
@@ -91,33 +107,64 @@ public class GrizzlyServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  protected void doRead(final Action<ByteBuffer> chunkAction) {
+  protected void doRead(final BatchAction<ByteBuffer> chunkAction) {
     final NIOInputStream in = request.getNIOInputStream();
-    in.notifyAvailable(new ReadHandler() {
+    readHandler = new ReadHandler() {
       @Override
       public void onDataAvailable() throws Exception {
-        byte buffer[] = new byte[8192];
-        int bytesRead = in.read(buffer);
-        chunkAction.on(ByteBuffer.wrap(buffer, 0, bytesRead));
-        if (!in.isFinished()) {
-          in.notifyAvailable(this);
+        BufferPool bufferPool = bufferPool();
+        ByteBuffer buffer = bufferPool.acquire();
+        int bytesRead = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+        // Nothing may have been read, which isn't a chunk
+        if (bytesRead > 0) {
+          buffer.limit(buffer.position() + bytesRead);
+          chunkAction.on(buffer);
         }
+        // The buffer goes back to the pool once the action returns
+        bufferPool.release(buffer);
+        if (paused) {
+          suspended.set(true);
+          // If resume has been called in the meantime, whichever takes the
+          // flag back waits for the next data
+          if (paused || !suspended.compareAndSet(true, false)) {
+            return;
+          }
+        }
+        // Registers again even if the body has been read in the meantime, so
+        // that onAllDataRead is called in any case
+        in.notifyAvailable(this);
       }
 
       @Override
       public void onAllDataRead() throws Exception {
-        // Read data first if it's ready
+        // Read data first if it's ready. It ends up here again
         if (in.isReady()) {
           onDataAvailable();
+        } else {
+          fireEnd();
         }
-        endActions.fire();
       }
 
       @Override
       public void onError(Throwable t) {
-        errorActions.fire(t);
+        fireError(t);
       }
-    });
+    };
+    in.notifyAvailable(readHandler);
+  }
+
+  @Override
+  protected void doPause() {
+    paused = true;
+  }
+
+  @Override
+  protected void doResume() {
+    paused = false;
+    if (suspended.compareAndSet(true, false)) {
+      request.getNIOInputStream().notifyAvailable(readHandler);
+    }
   }
 
   @Override
@@ -133,13 +180,68 @@ public class GrizzlyServerHttpExchange extends AbstractServerHttpExchange {
   @Override
   protected void doWrite(ByteBuffer byteBuffer) {
     try {
-      byte[] bytes = new byte[byteBuffer.remaining()];
-      byteBuffer.get(bytes);
       OutputStream out = response.getNIOOutputStream();
-      out.write(bytes);
-      out.flush();
+      if (byteBuffer.hasArray()) {
+        out.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+          byteBuffer.remaining());
+      } else {
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        out.write(bytes);
+      }
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
+    }
+  }
+
+  @Override
+  protected void doWrite(ByteBuffer[] byteBuffers) {
+    // Writes a composite buffer wrapping the given buffers without copying
+    MemoryManager memoryManager = MemoryManager.DEFAULT_MEMORY_MANAGER;
+    Buffer buffer = null;
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      Buffer wrapped = Buffers.wrap(memoryManager, byteBuffer);
+      buffer = buffer == null ? wrapped : Buffers.appendBuffers(memoryManager, buffer, wrapped);
+    }
+    if (buffer != null) {
+      try {
+        response.getNIOOutputStream().write(buffer);
+      } catch (IOException e) {
+        fireError(e);
+      }
+    }
+  }
+
+  @Override
+  protected boolean doIsWritable() {
+    NIOOutputStream out = response.getNIOOutputStream();
+    if (out.canWrite()) {
+      return true;
+    }
+    if (notifyingWritable.compareAndSet(false, true)) {
+      out.notifyCanWrite(new WriteHandler() {
+        @Override
+        public void onWritePossible() {
+          notifyingWritable.set(false);
+          fireWritable();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+          notifyingWritable.set(false);
+          fireError(t);
+        }
+      });
+    }
+    return false;
+  }
+
+  @Override
+  protected void doFlush() {
+    try {
+      response.getNIOOutputStream().flush();
+    } catch (IOException e) {
+      fireError(e);
     }
   }
 
@@ -148,6 +250,36 @@ public class GrizzlyServerHttpExchange extends AbstractServerHttpExchange {
     response.resume();
   }
 
+  @Override
+  protected void doSendFile(Path path, long offset, long length) {
+    // It's not available with SSL or if disabled in the server configuration
+    if (!response.isSendFileEnabled()) {
+      super.doSendFile(path, offset, length);
+      return;
+    }
+    // As the response is suspended, it's up to the handler to resume it
+    response.getOutputBuffer().sendfile(path.toFile(), offset, length,
+      new EmptyCompletionHandler<WriteResult>() {
+        @Override
+        public void completed(WriteResult result) {
+          response.resume();
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+          fireError(throwable);
+          doAbort();
+        }
+      });
+  }
+
+  @Override
+  protected void doAbort() {
+    // Closes the connection so that the client doesn't take what has been
+    // written as the whole body
+    request.getContext().getConnection().closeSilently();
+  }
+
   @Override
   public <T> T unwrap(Class<T> clazz) {
     return Request.class.isAssignableFrom(clazz) ?
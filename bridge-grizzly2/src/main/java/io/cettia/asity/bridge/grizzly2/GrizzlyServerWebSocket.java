@@ -44,23 +44,23 @@ public class GrizzlyServerWebSocket extends AbstractServerWebSocket {
     socket.add(new WebSocketAdapter() {
       @Override
       public void onMessage(WebSocket socket, String message) {
-        textActions.fire(message);
+        fireText(message);
       }
 
       @Override
       public void onMessage(WebSocket socket, byte[] bytes) {
-        binaryActions.fire(ByteBuffer.wrap(bytes));
+        fireBinary(ByteBuffer.wrap(bytes));
       }
 
       @Override
       public void onClose(WebSocket socket, DataFrame frame) {
-        closeActions.fire();
+        fireClose();
       }
     });
   }
 
   void onError(Throwable e) {
-    errorActions.fire(e);
+    fireError(e);
   }
 
   @Override
@@ -74,12 +74,12 @@ public class GrizzlyServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return new LinkedHashSet(Collections.list(socket.getUpgradeRequest().getHeaderNames()));
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return Collections.list(socket.getUpgradeRequest().getHeaders(name));
   }
 
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.jwa1;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 
 import javax.websocket.CloseReason;
@@ -50,7 +50,7 @@ import javax.websocket.Session;
  */
 public class AsityServerEndpoint extends Endpoint {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
   private JwaServerWebSocket ws;
 
   @Override
@@ -39,7 +39,7 @@ public class JwaServerWebSocket extends AbstractServerWebSocket {
   private final HandshakeRequest handshakeRequest;
   private final SendHandler sendHandler = result -> {
     if (!result.isOK()) {
-      errorActions.fire(result.getException());
+      fireError(result.getException());
     }
   };
 
@@ -50,23 +50,23 @@ public class JwaServerWebSocket extends AbstractServerWebSocket {
     session.addMessageHandler(new MessageHandler.Whole<String>() {
       @Override
       public void onMessage(String message) {
-        textActions.fire(message);
+        fireText(message);
       }
     });
     session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
       @Override
       public void onMessage(ByteBuffer message) {
-        binaryActions.fire(message);
+        fireBinary(message);
       }
     });
   }
 
   void onError(Throwable e) {
-    errorActions.fire(e);
+    fireError(e);
   }
 
   void onClose() {
-    closeActions.fire();
+    fireClose();
   }
 
   @Override
@@ -78,12 +78,12 @@ public class JwaServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return this.handshakeRequest.getHeaders().keySet();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return this.handshakeRequest.getHeaders().get(name);
   }
 
@@ -92,7 +92,7 @@ public class JwaServerWebSocket extends AbstractServerWebSocket {
     try {
       session.close();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.netty4;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import io.cettia.asity.websocket.ServerWebSocket;
 import io.netty.channel.Channel;
@@ -66,8 +66,8 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class AsityServerCodec extends ChannelInboundHandlerAdapter {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
   private Map<Channel, NettyServerHttpExchange> httpMap = new ConcurrentHashMap<>();
   private Map<Channel, NettyServerWebSocket> wsMap = new ConcurrentHashMap<>();
   private Map<Channel, FullHttpRequest> wsReqMap = new ConcurrentHashMap<>();
@@ -167,6 +167,17 @@ public class AsityServerCodec extends ChannelInboundHandlerAdapter {
     wsReqMap.remove(ctx.channel());
   }
 
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+    if (ctx.channel().isWritable()) {
+      NettyServerHttpExchange http = httpMap.get(ctx.channel());
+      if (http != null) {
+        http.handleWritable();
+      }
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
   /**
    * Registers an action to be called when {@link ServerHttpExchange} is
    * available.
@@ -16,22 +16,40 @@
 package io.cettia.asity.bridge.netty4;
 
 import io.cettia.asity.action.Action;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.http.AbstractServerHttpExchange;
 import io.cettia.asity.http.HttpMethod;
 import io.cettia.asity.http.HttpStatus;
 import io.cettia.asity.http.ServerHttpExchange;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpContentEncoder;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Set;
 
@@ -42,6 +60,8 @@ import java.util.Set;
  */
 public class NettyServerHttpExchange extends AbstractServerHttpExchange {
 
+  private static final int CHUNK_SIZE = 8192;
+
   private final ChannelHandlerContext context;
   private final HttpRequest request;
   private final HttpResponse response;
@@ -57,11 +77,15 @@ public class NettyServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   void handleError(Throwable cause) {
-    errorActions.fire(cause);
+    fireError(cause);
   }
 
   void handleClose() {
-    closeActions.fire();
+    fireClose();
+  }
+
+  void handleWritable() {
+    fireWritable();
   }
 
   @Override
@@ -75,17 +99,17 @@ public class NettyServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return request.headers().names();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return request.headers().getAll(name);
   }
 
   @Override
-  protected void doRead(Action<ByteBuffer> chunkAction) {
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
     this.chunkAction = chunkAction;
   }
 
@@ -97,10 +121,20 @@ public class NettyServerHttpExchange extends AbstractServerHttpExchange {
       this.chunkAction.on(buf.nioBuffer());
     }
     if (chunk instanceof LastHttpContent) {
-      endActions.fire();
+      fireEnd();
     }
   }
 
+  @Override
+  protected void doPause() {
+    context.channel().config().setAutoRead(false);
+  }
+
+  @Override
+  protected void doResume() {
+    context.channel().config().setAutoRead(true);
+  }
+
   @Override
   protected void doSetStatus(HttpStatus status) {
     response.setStatus(new HttpResponseStatus(status.code(), status.reason()));
@@ -109,24 +143,118 @@ public class NettyServerHttpExchange extends AbstractServerHttpExchange {
   @Override
   protected void doSetHeader(String name, String value) {
     response.headers().set(name, value);
+    // The body is sent as it is if its length is given
+    if (name.equalsIgnoreCase(HttpHeaders.Names.CONTENT_LENGTH)) {
+      response.headers().remove(HttpHeaders.Names.TRANSFER_ENCODING);
+    }
   }
 
   @Override
   protected void doWrite(ByteBuffer byteBuffer) {
-    ByteBuf buf = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(byteBuffer));
+    write(Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(byteBuffer)));
+  }
+
+  @Override
+  protected void doWrite(ByteBuffer[] byteBuffers) {
+    // A composite buffer over the given buffers is written as one chunk
+    write(Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(byteBuffers)));
+  }
+
+  @Override
+  protected void doWrite(String data, Charset charset) {
+    // Encodes the text into a pooled buffer which is released once written
+    write(charset.equals(CharsetUtil.UTF_8) ?
+      ByteBufUtil.writeUtf8(context.alloc(), data) :
+      ByteBufUtil.encodeString(context.alloc(), CharBuffer.wrap(data), charset));
+  }
+
+  private void write(ByteBuf buf) {
     if (!written) {
       written = true;
       context.write(response);
     }
-    context.writeAndFlush(buf);
+    context.write(buf);
+  }
+
+  @Override
+  protected boolean doIsWritable() {
+    return context.channel().isWritable();
+  }
+
+  @Override
+  protected void doFlush() {
+    context.flush();
   }
 
   @Override
   protected void doEnd() {
     if (!written) {
-      written = true;
-      context.write(response);
+      endFull(Unpooled.EMPTY_BUFFER);
+    } else {
+      context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+  }
+
+  @Override
+  protected void doEnd(ByteBuffer body) {
+    endFull(Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(body)));
+  }
+
+  @Override
+  protected void doEnd(ByteBuffer[] body) {
+    endFull(Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(body)));
+  }
+
+  @Override
+  protected void doAbort() {
+    context.close();
+  }
+
+  // Sends the whole response in a single write without chunked encoding
+  private void endFull(ByteBuf content) {
+    written = true;
+    HttpHeaders headers = response.headers();
+    if (!headers.contains(HttpHeaders.Names.CONTENT_LENGTH)) {
+      headers.remove(HttpHeaders.Names.TRANSFER_ENCODING);
+      headers.set(HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+    }
+    context.writeAndFlush(new DefaultFullHttpResponse(response.getProtocolVersion(),
+      response.getStatus(), content, headers, EmptyHttpHeaders.INSTANCE));
+  }
+
+  @Override
+  protected void doSendFile(Path path, long offset, long length) {
+    ChannelPipeline pipeline = context.pipeline();
+    // A file region is transferred by the kernel as it is so it can't be
+    // encrypted or compressed
+    boolean zeroCopy = pipeline.get(SslHandler.class) == null &&
+      pipeline.get(HttpContentEncoder.class) == null;
+    if (!zeroCopy && pipeline.get(ChunkedWriteHandler.class) == null) {
+      super.doSendFile(path, offset, length);
+      return;
+    }
+    Object content;
+    try {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+      // Both close the channel once written
+      content = zeroCopy ?
+        new DefaultFileRegion(channel, offset, length) :
+        new ChunkedNioFile(channel, offset, length, CHUNK_SIZE);
+    } catch (IOException e) {
+      // The response can't be completed as content-length has been set
+      fireError(e);
+      doAbort();
+      return;
     }
+    written = true;
+    context.write(response);
+    ChannelFuture future = context.write(content);
+    future.addListener(f -> {
+      if (!f.isSuccess()) {
+        fireError(f.cause());
+        doAbort();
+      }
+    });
     context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
   }
 
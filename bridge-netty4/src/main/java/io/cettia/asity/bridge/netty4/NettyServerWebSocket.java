@@ -50,21 +50,21 @@ public class NettyServerWebSocket extends AbstractServerWebSocket {
 
   void handleFrame(WebSocketFrame frame) {
     if (frame instanceof TextWebSocketFrame) {
-      textActions.fire(((TextWebSocketFrame) frame).text());
+      fireText(((TextWebSocketFrame) frame).text());
     } else if (frame instanceof BinaryWebSocketFrame) {
-      binaryActions.fire(frame.content().nioBuffer());
+      fireBinary(frame.content().nioBuffer());
     } else if (frame instanceof CloseWebSocketFrame) {
       handshaker.close(context.channel(), (CloseWebSocketFrame) frame.retain());
-      closeActions.fire();
+      fireClose();
     }
   }
 
   void handleError(Throwable e) {
-    errorActions.fire(e);
+    fireError(e);
   }
 
   void handleClose() {
-    closeActions.fire();
+    fireClose();
   }
 
   @Override
@@ -73,12 +73,12 @@ public class NettyServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return request.headers().names();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return request.headers().getAll(name);
   }
 
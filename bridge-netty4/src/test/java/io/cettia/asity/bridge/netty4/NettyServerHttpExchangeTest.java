@@ -30,6 +30,8 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpServerCodec;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.junit.Test;
 
 import java.net.URI;
@@ -85,4 +87,19 @@ public class NettyServerHttpExchangeTest extends ServerHttpExchangeTestBase {
     await();
   }
 
+  @Test
+  public void testEndWithoutChunkedEncoding() throws Throwable {
+    requestAction(http -> http.end("hello"));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(result.getResponse().getHeaders().get("content-length"), "5");
+        threadAssertEquals(result.getResponse().getHeaders().get("transfer-encoding"), null);
+        threadAssertEquals(getContentAsString(), "hello");
+        resume();
+      }
+    });
+    await();
+  }
+
 }
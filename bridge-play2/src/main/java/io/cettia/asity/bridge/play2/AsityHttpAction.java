@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.play2;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import play.mvc.Http;
 import play.mvc.Result;
@@ -40,7 +40,7 @@ import java.util.concurrent.CompletionStage;
  */
 public class AsityHttpAction {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
 
   /**
    * Handles the given request.
@@ -22,7 +22,7 @@ import akka.stream.OverflowStrategy;
 import akka.stream.javadsl.Flow;
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 import play.http.websocket.Message;
 import play.libs.F;
@@ -52,7 +52,7 @@ import java.util.concurrent.CompletionStage;
  */
 public class AsityWebSocket extends WebSocket {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
   private final ActorSystem actorSystem;
   private final Materializer materializer;
 
@@ -16,12 +16,11 @@
 package io.cettia.asity.bridge.play2;
 
 import akka.NotUsed;
-import akka.actor.ActorRef;
-import akka.actor.Status;
 import akka.stream.OverflowStrategy;
 import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
 import akka.util.ByteString;
-import io.cettia.asity.action.Action;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.action.Actions;
 import io.cettia.asity.action.SimpleActions;
 import io.cettia.asity.http.AbstractServerHttpExchange;
@@ -39,6 +38,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link ServerHttpExchange} for Play framework 2.
@@ -51,8 +51,11 @@ public class PlayServerHttpExchange extends AbstractServerHttpExchange {
   private final CompletableFuture<Result> resultFuture = new CompletableFuture<>();
   private HttpStatus status = HttpStatus.OK;
   private final Map<String, String> responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-  private final Actions<ActorRef> actorActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
+  private final Actions<SourceQueueWithComplete<ByteString>> queueActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
+  // The number of chunks not yet accepted by the queue
+  private final AtomicInteger offering = new AtomicInteger();
   private boolean flushed;
+  private ByteString pending;
 
   public PlayServerHttpExchange(Http.Request request) {
     this.request = request;
@@ -73,20 +76,29 @@ public class PlayServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return request.getHeaders().toMap().keySet();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return request.getHeaders().getAll(name);
   }
 
 
   @Override
-  protected void doRead(Action<ByteBuffer> chunkAction) {
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
     chunkAction.on((request.body().asRaw().asBytes().asByteBuffer()));
-    endActions.fire();
+    fireEnd();
+  }
+
+  // The body has been read by Play before the exchange is created
+  @Override
+  protected void doPause() {
+  }
+
+  @Override
+  protected void doResume() {
   }
 
   @Override
@@ -100,8 +112,10 @@ public class PlayServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   private void flushStatusAndHeaders() {
-    Source<ByteString, ?> chunks = Source.<ByteString>actorRef(256, OverflowStrategy.fail()).mapMaterializedValue(actor -> {
-      this.actorActions.fire(actor);
+    // Offering a chunk while the buffer is full and the previous offer is
+    // pending fails the stream, so producers should follow isWritable
+    Source<ByteString, ?> chunks = Source.<ByteString>queue(256, OverflowStrategy.backpressure()).mapMaterializedValue(queue -> {
+      this.queueActions.fire(queue);
       return NotUsed.getInstance();
     });
     Result result = new Result(status.code(), status.reason(), responseHeaders,
@@ -116,7 +130,30 @@ public class PlayServerHttpExchange extends AbstractServerHttpExchange {
       flushStatusAndHeaders();
     }
 
-    actorActions.add(actor -> actor.tell(ByteString.fromByteBuffer(byteBuffer), null));
+    // Chunks written before a flush are sent to the stream as one
+    ByteString chunk = ByteString.fromByteBuffer(byteBuffer);
+    pending = pending == null ? chunk : pending.concat(chunk);
+  }
+
+  @Override
+  protected void doFlush() {
+    if (pending != null) {
+      ByteString chunk = pending;
+      pending = null;
+      offering.incrementAndGet();
+      queueActions.add(queue -> queue.offer(chunk).whenComplete((result, throwable) -> {
+        if (throwable != null) {
+          fireError(throwable);
+        } else if (offering.decrementAndGet() == 0) {
+          fireWritable();
+        }
+      }));
+    }
+  }
+
+  @Override
+  protected boolean doIsWritable() {
+    return offering.get() == 0;
   }
 
   @Override
@@ -126,7 +163,8 @@ public class PlayServerHttpExchange extends AbstractServerHttpExchange {
       flushStatusAndHeaders();
     }
 
-    actorActions.add(actor -> actor.tell(new Status.Success(NotUsed.getInstance()), null));
+    doFlush();
+    queueActions.add(SourceQueueWithComplete::complete);
   }
 
   /**
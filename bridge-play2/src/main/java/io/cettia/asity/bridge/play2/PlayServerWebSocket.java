@@ -51,25 +51,25 @@ public class PlayServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return request.getHeaders().toMap().keySet();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return request.getHeaders().getAll(name);
   }
 
   void onMessage(Message.Text message) {
-    textActions.fire(message.data());
+    fireText(message.data());
   }
 
   void onMessage(Message.Binary message) {
-    binaryActions.fire(message.data().toByteBuffer());
+    fireBinary(message.data().toByteBuffer());
   }
 
   void onClose() {
-    closeActions.fire();
+    fireClose();
   }
 
   @Override
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.servlet3;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 
 import javax.servlet.http.HttpServlet;
@@ -43,11 +43,24 @@ import javax.servlet.http.HttpServletResponse;
 @SuppressWarnings("serial")
 public class AsityServlet extends HttpServlet {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
+  private boolean nonBlockingWrite;
 
   @Override
   protected void service(HttpServletRequest req, HttpServletResponse resp) {
-    httpActions.fire(new ServletServerHttpExchange(req, resp));
+    httpActions.fire(new ServletServerHttpExchange(req, resp, nonBlockingWrite));
+  }
+
+  /**
+   * Sets whether to write responses without blocking on Servlet 3.1+. It's
+   * disabled by default as the response's output stream can't be written
+   * directly then. See
+   * {@link ServletServerHttpExchange#ServletServerHttpExchange(HttpServletRequest,
+   * HttpServletResponse, boolean)}.
+   */
+  public AsityServlet setNonBlockingWrite(boolean nonBlockingWrite) {
+    this.nonBlockingWrite = nonBlockingWrite;
+    return this;
   }
 
   /**
@@ -16,8 +16,9 @@
 package io.cettia.asity.bridge.servlet3;
 
 import io.cettia.asity.action.Action;
-import io.cettia.asity.action.Actions;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.http.AbstractServerHttpExchange;
+import io.cettia.asity.http.BufferPool;
 import io.cettia.asity.http.HttpMethod;
 import io.cettia.asity.http.HttpStatus;
 import io.cettia.asity.http.ServerHttpExchange;
@@ -27,16 +28,29 @@ import javax.servlet.AsyncEvent;
 import javax.servlet.AsyncListener;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * {@link ServerHttpExchange} for Servlet 3.
@@ -47,10 +61,28 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
 
   private final HttpServletRequest request;
   private final HttpServletResponse response;
+  private final int servletMinorVersion;
+  private final boolean nonBlockingWrite;
+  private BodyReader bodyReader;
+  // Created on the first write if non-blocking writes are enabled
+  private AsyncResponseWriter responseWriter;
 
   public ServletServerHttpExchange(HttpServletRequest request, HttpServletResponse response) {
+    this(request, response, false);
+  }
+
+  /**
+   * Creates an exchange which writes the response without blocking if
+   * {@code nonBlockingWrite} is {@code true} and the container supports
+   * Servlet 3.1. Then, the response's output stream is in non-blocking mode
+   * and shouldn't be written directly through {@link #unwrap(Class)}.
+   */
+  public ServletServerHttpExchange(HttpServletRequest request, HttpServletResponse response,
+                                   boolean nonBlockingWrite) {
     this.request = request;
     this.response = response;
+    this.servletMinorVersion = getServletMinorVersion();
+    this.nonBlockingWrite = nonBlockingWrite && servletMinorVersion > 0;
     AsyncContext async = request.startAsync();
     async.setTimeout(0);
     async.addListener(new AsyncListener() {
@@ -64,12 +96,12 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
 
       @Override
       public void onTimeout(AsyncEvent event) throws IOException {
-        closeActions.fire();
+        fireClose();
       }
 
       @Override
       public void onError(AsyncEvent event) throws IOException {
-        errorActions.fire(event.getThrowable());
+        fireError(event.getThrowable());
       }
     });
   }
@@ -89,7 +121,7 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     Set<String> headerNames = new LinkedHashSet<>();
     Enumeration<String> enumeration = request.getHeaderNames();
     while (enumeration.hasMoreElements()) {
@@ -99,26 +131,40 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return Collections.list(request.getHeaders(name));
   }
 
   @Override
-  protected void doRead(Action<ByteBuffer> chunkAction) {
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
     try {
       ServletInputStream input = request.getInputStream();
-      int version = getServletMinorVersion();
-      BodyReader bodyReader;
-      if (version > 0) {
+      if (servletMinorVersion > 0) {
         // 3.1+ asynchronous
-        bodyReader = new AsyncBodyReader(input, chunkAction, endActions, errorActions);
+        bodyReader = new AsyncBodyReader(input, chunkAction, bufferPool(), $ -> fireEnd(),
+          this::fireError);
       } else {
         // 3.0 synchronous
-        bodyReader = new SyncBodyReader(input, chunkAction, endActions, errorActions, request.getAsyncContext());
+        bodyReader = new SyncBodyReader(input, chunkAction, bufferPool(), $ -> fireEnd(),
+          this::fireError, request.getAsyncContext());
       }
       bodyReader.start();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
+    }
+  }
+
+  @Override
+  protected void doPause() {
+    if (bodyReader != null) {
+      bodyReader.pause();
+    }
+  }
+
+  @Override
+  protected void doResume() {
+    if (bodyReader != null) {
+      bodyReader.resume();
     }
   }
 
@@ -148,19 +194,117 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
   @Override
   protected void doWrite(ByteBuffer byteBuffer) {
     try {
-      byte[] bytes = new byte[byteBuffer.remaining()];
-      byteBuffer.get(bytes);
+      if (nonBlockingWrite) {
+        responseWriter().write(byteBuffer);
+        return;
+      }
       OutputStream outputStream = response.getOutputStream();
-      outputStream.write(bytes);
-      outputStream.flush();
+      if (byteBuffer.hasArray()) {
+        outputStream.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+          byteBuffer.remaining());
+      } else {
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        outputStream.write(bytes);
+      }
+    } catch (IOException e) {
+      fireError(e);
+    }
+  }
+
+  private AsyncResponseWriter responseWriter() throws IOException {
+    if (responseWriter == null) {
+      responseWriter = new AsyncResponseWriter(response.getOutputStream(), $ -> fireWritable(),
+        $ -> request.getAsyncContext().complete(), this::fireError);
+      response.getOutputStream().setWriteListener(responseWriter);
+    }
+    return responseWriter;
+  }
+
+  /**
+   * Returns the number of bytes written but not yet handed over to the
+   * container. It's always zero unless non-blocking writes are enabled.
+   */
+  public long queuedBytes() {
+    return responseWriter != null ? responseWriter.queuedBytes() : 0;
+  }
+
+  // Streams the file to the output stream through a small buffer of the
+  // file channel rather than mapping it
+  @Override
+  protected void doSendFile(Path path, long offset, long length) {
+    try {
+      if (nonBlockingWrite) {
+        // The writer aborts the response if the file fails to be read in the
+        // middle
+        AsyncResponseWriter writer = responseWriter();
+        writer.sendFile(FileChannel.open(path, StandardOpenOption.READ), offset, length);
+        writer.end();
+        return;
+      }
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        OutputStream outputStream = response.getOutputStream();
+        WritableByteChannel target = outputStream instanceof WritableByteChannel ?
+          (WritableByteChannel) outputStream :
+          Channels.newChannel(outputStream);
+        long end = offset + length;
+        for (long position = offset; position < end; ) {
+          long transferred = channel.transferTo(position, end - position, target);
+          if (transferred <= 0) {
+            throw new EOFException("The file has been truncated");
+          }
+          position += transferred;
+        }
+      }
+    } catch (IOException e) {
+      // The response can't be completed as content-length has been set
+      fireError(e);
+      doAbort();
+      return;
+    }
+    doEnd();
+  }
+
+  // Unless non-blocking writes are enabled, writes to the output stream block
+  // until done so nothing piles up
+  @Override
+  protected boolean doIsWritable() {
+    return responseWriter == null || responseWriter.isWritable();
+  }
+
+  @Override
+  protected void doFlush() {
+    if (responseWriter != null) {
+      responseWriter.flush();
+      return;
+    }
+    try {
+      response.getOutputStream().flush();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
   @Override
   protected void doEnd() {
-    request.getAsyncContext().complete();
+    if (responseWriter != null) {
+      // Completes once what has been queued is written
+      responseWriter.end();
+    } else {
+      request.getAsyncContext().complete();
+    }
+  }
+
+  // There is no portable way to close the connection, but the container
+  // closes it when the response is completed short of content-length. A
+  // chunked response, however, ends as usual
+  @Override
+  protected void doAbort() {
+    if (responseWriter != null) {
+      responseWriter.abort();
+    } else {
+      request.getAsyncContext().complete();
+    }
   }
 
   /**
@@ -176,40 +320,77 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   private abstract static class BodyReader {
-    final ServletInputStream input;
-    final Action<ByteBuffer> chunkAction;
-    final Actions<Void> endActions;
-    final Actions<Throwable> errorActions;
+    static final int MAX_BATCH_SIZE = 16;
 
-    public BodyReader(ServletInputStream input, Action<ByteBuffer> chunkAction, Actions<Void>
-      endActions, Actions<Throwable> errorActions) {
+    final ServletInputStream input;
+    final BatchAction<ByteBuffer> chunkAction;
+    final BufferPool bufferPool;
+    final Action<Void> endAction;
+    final Action<Throwable> errorAction;
+    volatile boolean paused;
+
+    public BodyReader(ServletInputStream input, BatchAction<ByteBuffer> chunkAction, BufferPool
+      bufferPool, Action<Void> endAction, Action<Throwable> errorAction) {
       this.input = input;
       this.chunkAction = chunkAction;
-      this.endActions = endActions;
-      this.errorActions = errorActions;
+      this.bufferPool = bufferPool;
+      this.endAction = endAction;
+      this.errorAction = errorAction;
     }
 
     abstract void start();
 
+    void pause() {
+      paused = true;
+    }
+
+    abstract void resume();
+
     void read() throws IOException {
-      int bytesRead = -1;
-      byte buffer[] = new byte[8192];
-      while (ready() && (bytesRead = input.read(buffer)) != -1) {
-        chunkAction.on(ByteBuffer.wrap(buffer, 0, bytesRead));
+      // Chunks read at once are delivered together up to MAX_BATCH_SIZE
+      List<ByteBuffer> chunks = new ArrayList<>();
+      while (!paused && ready()) {
+        ByteBuffer buffer = bufferPool.acquire();
+        int bytesRead = input.read(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+        if (bytesRead == -1) {
+          bufferPool.release(buffer);
+          break;
+        }
+        buffer.limit(buffer.position() + bytesRead);
+        chunks.add(buffer);
+        if (chunks.size() == MAX_BATCH_SIZE) {
+          deliver(chunks);
+        }
+      }
+      if (!chunks.isEmpty()) {
+        deliver(chunks);
       }
     }
 
+    // The buffers go back to the pool once the action returns
+    private void deliver(List<ByteBuffer> chunks) {
+      chunkAction.onBatch(chunks);
+      for (ByteBuffer chunk : chunks) {
+        bufferPool.release(chunk);
+      }
+      chunks.clear();
+    }
+
     abstract boolean ready();
 
     void end() {
-      endActions.fire();
+      endAction.on(null);
     }
   }
 
   private static class AsyncBodyReader extends BodyReader {
-    public AsyncBodyReader(ServletInputStream input, Action<ByteBuffer> action, Actions<Void>
-      endActions, Actions<Throwable> errorActions) {
-      super(input, action, endActions, errorActions);
+    // Whether the reading has stopped for the pause and is owed to resume
+    private final AtomicBoolean suspended = new AtomicBoolean();
+
+    public AsyncBodyReader(ServletInputStream input, BatchAction<ByteBuffer> action, BufferPool
+      bufferPool, Action<Void> endAction, Action<Throwable> errorAction) {
+      super(input, action, bufferPool, endAction, errorAction);
     }
 
     @Override
@@ -217,21 +398,54 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
       input.setReadListener(new ReadListener() {
         @Override
         public void onDataAvailable() throws IOException {
-          read();
+          readUntilPaused();
         }
 
         @Override
         public void onAllDataRead() throws IOException {
-          end();
+          // The container may call it while the resuming thread is still
+          // delivering the last chunks
+          synchronized (AsyncBodyReader.this) {
+            end();
+          }
         }
 
         @Override
         public void onError(Throwable t) {
-          errorActions.fire(t);
+          errorAction.on(t);
         }
       });
     }
 
+    @Override
+    void resume() {
+      paused = false;
+      // The container doesn't call onDataAvailable again until isReady
+      // returns false, so the reading stopped by the pause continues here
+      if (suspended.compareAndSet(true, false)) {
+        try {
+          readUntilPaused();
+        } catch (IOException e) {
+          errorAction.on(e);
+        }
+      }
+    }
+
+    // Once isReady returns false, the container may call onDataAvailable on
+    // another thread before the resuming thread delivers the chunks read
+    private synchronized void readUntilPaused() throws IOException {
+      read();
+      while (paused) {
+        suspended.set(true);
+        // If resume has been called in the meantime, whichever takes the flag
+        // back goes on reading
+        if (paused || !suspended.compareAndSet(true, false)) {
+          return;
+        }
+        read();
+      }
+    }
+
     @Override
     boolean ready() {
       return input.isReady();
@@ -241,9 +455,10 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
   private static class SyncBodyReader extends BodyReader {
     private AsyncContext asyncContext;
 
-    public SyncBodyReader(ServletInputStream input, Action<ByteBuffer> action, Actions<Void>
-      endActions, Actions<Throwable> errorActions, AsyncContext asyncContext) {
-      super(input, action, endActions, errorActions);
+    public SyncBodyReader(ServletInputStream input, BatchAction<ByteBuffer> action, BufferPool
+      bufferPool, Action<Void> endAction, Action<Throwable> errorAction, AsyncContext
+      asyncContext) {
+      super(input, action, bufferPool, endAction, errorAction);
       this.asyncContext = asyncContext;
     }
 
@@ -251,23 +466,248 @@ public class ServletServerHttpExchange extends AbstractServerHttpExchange {
     void start() {
       asyncContext.start(() -> {
         try {
-          read();
+          do {
+            read();
+          } while (awaitResume());
           end();
         } catch (IOException e) {
-          errorActions.fire(e);
+          errorAction.on(e);
         }
       });
     }
 
+    // Blocks the reading thread while paused as reading is blocking anyway
+    private synchronized boolean awaitResume() throws InterruptedIOException {
+      if (!paused) {
+        return false;
+      }
+      try {
+        while (paused) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      }
+      return true;
+    }
+
+    @Override
+    synchronized void resume() {
+      paused = false;
+      notifyAll();
+    }
+
     @Override
     boolean ready() {
       try {
         return input.available() > 0;
       } catch (IOException e) {
-        errorActions.fire(e);
+        errorAction.on(e);
+        return false;
+      }
+    }
+  }
+
+  // Writes the response without blocking on Servlet 3.1+. What can't be
+  // written right away is queued in order and written when the container
+  // calls onWritePossible, so a slow client doesn't hold any thread. Once
+  // the queue is emptied, by whichever thread, the drain action is called.
+  private static class AsyncResponseWriter implements WriteListener {
+    private static final Object FLUSH = new Object();
+    private static final Object END = new Object();
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ServletOutputStream output;
+    private final Action<Void> drainAction;
+    private final Action<Void> endAction;
+    private final Action<Throwable> errorAction;
+    // Buffers, file regions, FLUSH and END
+    private final Queue<Object> queue = new ArrayDeque<>();
+    private volatile long queuedBytes;
+    private byte[] chunk;
+    private boolean draining;
+    // Once it fails, what is written afterwards is ignored
+    private boolean failed;
+
+    AsyncResponseWriter(ServletOutputStream output, Action<Void> drainAction, Action<Void>
+      endAction, Action<Throwable> errorAction) {
+      this.output = output;
+      this.drainAction = drainAction;
+      this.endAction = endAction;
+      this.errorAction = errorAction;
+    }
+
+    void write(ByteBuffer byteBuffer) {
+      // Copied as the caller may reuse the buffer once it returns. The
+      // position of the given buffer is left as it is
+      ByteBuffer copy = ByteBuffer.allocate(byteBuffer.remaining());
+      copy.put(byteBuffer.duplicate()).flip();
+      enqueue(copy, copy.remaining());
+    }
+
+    void sendFile(FileChannel channel, long offset, long length) {
+      enqueue(new FileRegion(channel, offset, offset + length), length);
+    }
+
+    void flush() {
+      enqueue(FLUSH, 0);
+    }
+
+    void end() {
+      enqueue(END, 0);
+    }
+
+    long queuedBytes() {
+      return queuedBytes;
+    }
+
+    synchronized boolean isWritable() {
+      return queue.isEmpty();
+    }
+
+    // Completes the response right away discarding what has been queued
+    synchronized void abort() {
+      if (!failed) {
+        fail();
+        endAction.on(null);
+      }
+    }
+
+    private void enqueue(Object item, long bytes) {
+      boolean drained;
+      synchronized (this) {
+        if (failed) {
+          return;
+        }
+        queue.add(item);
+        queuedBytes += bytes;
+        drained = drain();
+      }
+      // Out of the lock as the action may write again
+      if (drained) {
+        drainAction.on(null);
+      }
+    }
+
+    // The container calls it once the listener is set as well
+    @Override
+    public void onWritePossible() {
+      boolean drained;
+      synchronized (this) {
+        drained = !failed && drain();
+      }
+      if (drained) {
+        drainAction.on(null);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      synchronized (this) {
+        fail();
+      }
+      errorAction.on(throwable);
+    }
+
+    // Writes queued items as long as the output is ready and returns whether
+    // the queue has been emptied. If the output isn't ready, the container
+    // calls onWritePossible later
+    private boolean drain() {
+      // The container may call onWritePossible while writing
+      if (draining) {
+        return false;
+      }
+      draining = true;
+      try {
+        while (!queue.isEmpty()) {
+          if (!output.isReady()) {
+            return false;
+          }
+          Object item = queue.peek();
+          if (item == FLUSH) {
+            output.flush();
+          } else if (item == END) {
+            endAction.on(null);
+          } else if (item instanceof ByteBuffer) {
+            writeBuffer((ByteBuffer) item);
+          } else if (!writeRegion((FileRegion) item)) {
+            // Continues with the rest of the item once the output is ready
+            continue;
+          }
+          queue.poll();
+        }
+        return true;
+      } catch (IOException e) {
+        // Not to leave the response open, which looks complete otherwise if
+        // the file failed to be read
+        fail();
+        errorAction.on(e);
+        endAction.on(null);
         return false;
+      } finally {
+        draining = false;
       }
     }
+
+    // The buffer is a copy, so its array is handed over to the container
+    // as it is
+    private void writeBuffer(ByteBuffer byteBuffer) throws IOException {
+      output.write(byteBuffer.array(), byteBuffer.arrayOffset(), byteBuffer.remaining());
+      queuedBytes -= byteBuffer.remaining();
+    }
+
+    // Returns true if the region has been fully written
+    private boolean writeRegion(FileRegion region) throws IOException {
+      int length = (int) Math.min(region.end - region.position, CHUNK_SIZE);
+      int read = region.channel.read(ByteBuffer.wrap(chunk(), 0, length), region.position);
+      if (read <= 0) {
+        throw new EOFException("The file has been truncated");
+      }
+      output.write(chunk, 0, read);
+      region.position += read;
+      queuedBytes -= read;
+      if (region.position < region.end) {
+        return false;
+      }
+      region.channel.close();
+      return true;
+    }
+
+    // The chunk is reused only once the output is ready, that is, the
+    // container is done with the previous one
+    private byte[] chunk() {
+      if (chunk == null) {
+        chunk = new byte[CHUNK_SIZE];
+      }
+      return chunk;
+    }
+
+    private void fail() {
+      failed = true;
+      for (Object item : queue) {
+        if (item instanceof FileRegion) {
+          try {
+            ((FileRegion) item).channel.close();
+          } catch (IOException e) {
+            // Ignores as it's being discarded
+          }
+        }
+      }
+      queue.clear();
+      queuedBytes = 0;
+    }
+  }
+
+  private static class FileRegion {
+    final FileChannel channel;
+    final long end;
+    long position;
+
+    FileRegion(FileChannel channel, long position, long end) {
+      this.channel = channel;
+      this.position = position;
+      this.end = end;
+    }
   }
 
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.bridge.servlet3;
+
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Runs the tests with non-blocking writes enabled.
+ *
+ * @author Donghwan Kim
+ */
+public class ServletServerHttpExchangeNonBlockingWriteTest extends ServletServerHttpExchangeTest {
+
+  @Override
+  protected boolean nonBlockingWrite() {
+    return true;
+  }
+
+  @Test
+  public void testWriteReusedBuffer() throws Throwable {
+    requestAction(http -> {
+      ByteBuffer buffer = ByteBuffer.allocate(5);
+      buffer.put("hello".getBytes()).flip();
+      http.write(buffer);
+      // Reused as soon as write returns
+      buffer.clear();
+      buffer.put("world".getBytes()).flip();
+      http.end(buffer);
+    });
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(getContentAsString(), "helloworld");
+        resume();
+      }
+    });
+    await();
+  }
+
+}
@@ -52,7 +52,8 @@ public class ServletServerHttpExchangeTest extends ServerHttpExchangeTestBase {
       @Override
       public void contextInitialized(ServletContextEvent event) {
         ServletContext context = event.getServletContext();
-        Servlet servlet = new AsityServlet().onhttp(requestAction);
+        Servlet servlet = new AsityServlet().setNonBlockingWrite(nonBlockingWrite())
+        .onhttp(requestAction);
         ServletRegistration.Dynamic reg = context.addServlet(AsityServlet.class.getName(), servlet);
         reg.setAsyncSupported(true);
         reg.addMapping(TEST_PATH);
@@ -71,6 +72,10 @@ public class ServletServerHttpExchangeTest extends ServerHttpExchangeTestBase {
     server.stop();
   }
 
+  protected boolean nonBlockingWrite() {
+    return false;
+  }
+
   @Test
   public void unwrap() throws Throwable {
     requestAction(http -> {
@@ -88,4 +93,12 @@ public class ServletServerHttpExchangeTest extends ServerHttpExchangeTestBase {
   public void testOnclose() {
   }
 
+  // The connection can't be closed through the Servlet API, so an aborted
+  // chunked response ends as usual
+  @Override
+  @Test
+  @Ignore
+  public void testResponseBodySubscriberFailure() {
+  }
+
 }
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.spring.webflux5;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import org.springframework.web.reactive.function.server.HandlerFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
@@ -47,7 +47,7 @@ import reactor.core.publisher.Mono;
  */
 public class AsityHandlerFunction implements HandlerFunction<ServerResponse> {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
 
   @Override
   public Mono<ServerResponse> handle(ServerRequest request) {
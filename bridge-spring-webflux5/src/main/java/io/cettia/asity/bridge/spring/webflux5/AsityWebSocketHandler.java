@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.spring.webflux5;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketSession;
@@ -48,7 +48,7 @@ import reactor.core.publisher.Mono;
  */
 public class AsityWebSocketHandler implements WebSocketHandler {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
 
   @Override
   public Mono<Void> handle(WebSocketSession session) {
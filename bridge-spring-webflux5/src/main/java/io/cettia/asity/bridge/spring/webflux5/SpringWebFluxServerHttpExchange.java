@@ -15,23 +15,28 @@
  */
 package io.cettia.asity.bridge.spring.webflux5;
 
-import io.cettia.asity.action.Action;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.http.AbstractServerHttpExchange;
 import io.cettia.asity.http.HttpMethod;
 import io.cettia.asity.http.HttpStatus;
 import io.cettia.asity.http.ServerHttpExchange;
+import org.reactivestreams.Subscription;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.ConnectableFlux;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * {@link ServerHttpExchange} for Spring WebFlux 5.
@@ -43,17 +48,24 @@ public class SpringWebFluxServerHttpExchange extends AbstractServerHttpExchange
   private final ServerRequest request;
   private final Mono<ServerResponse> serverResponse;
   private ServerHttpResponse response;
-  private FluxSink<ByteBuffer> chunkEmitter;
+  // Emits chunks written between flushes at once
+  private FluxSink<List<ByteBuffer>> chunkEmitter;
+  private List<ByteBuffer> pending;
+  private BodySubscriber bodySubscriber;
 
   public SpringWebFluxServerHttpExchange(ServerRequest request) {
     this.request = request;
 
-    Flux<ByteBuffer> flux = Flux.create(chunkEmitter -> this.chunkEmitter = chunkEmitter);
-    ConnectableFlux<ByteBuffer> chunks = flux.publish();
+    Flux<List<ByteBuffer>> flux = Flux.create(chunkEmitter -> {
+      this.chunkEmitter = chunkEmitter;
+      chunkEmitter.onRequest($ -> fireWritable());
+    });
+    ConnectableFlux<List<ByteBuffer>> chunks = flux.publish();
     chunks.connect();
     this.serverResponse = ServerResponse.ok().body((response, context) -> {
       this.response = response;
-      return response.writeAndFlushWith(chunks.map(element -> Mono.just(response.bufferFactory().wrap(element))));
+      return response.writeAndFlushWith(chunks.map(elements ->
+        Flux.fromIterable(elements).map(element -> response.bufferFactory().wrap(element))));
     });
   }
 
@@ -73,18 +85,29 @@ public class SpringWebFluxServerHttpExchange extends AbstractServerHttpExchange
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return request.headers().asHttpHeaders().keySet();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return request.headers().header(name);
   }
 
   @Override
-  protected void doRead(Action<ByteBuffer> chunkAction) {
-    request.bodyToFlux(ByteBuffer.class).subscribe(chunkAction::on, errorActions::fire, endActions::fire);
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
+    bodySubscriber = new BodySubscriber(chunkAction);
+    request.bodyToFlux(ByteBuffer.class).subscribe(bodySubscriber);
+  }
+
+  @Override
+  protected void doPause() {
+    bodySubscriber.paused = true;
+  }
+
+  @Override
+  protected void doResume() {
+    bodySubscriber.resume();
   }
 
   @Override
@@ -99,14 +122,39 @@ public class SpringWebFluxServerHttpExchange extends AbstractServerHttpExchange
 
   @Override
   protected void doWrite(ByteBuffer byteBuffer) {
-    chunkEmitter.next(byteBuffer);
+    if (pending == null) {
+      pending = new ArrayList<>();
+    }
+    pending.add(byteBuffer);
+  }
+
+  // The response is writable as long as it's requested by the downstream
+  @Override
+  protected boolean doIsWritable() {
+    return chunkEmitter.requestedFromDownstream() > 0;
+  }
+
+  @Override
+  protected void doFlush() {
+    if (pending != null) {
+      chunkEmitter.next(pending);
+      pending = null;
+    }
   }
 
   @Override
   protected void doEnd() {
+    doFlush();
     chunkEmitter.complete();
   }
 
+  // The server closes the connection when the body fails
+  @Override
+  protected void doAbort() {
+    doFlush();
+    chunkEmitter.error(new IOException("The response has been aborted"));
+  }
+
   /**
    * {@link ServerRequest} and {@link ServerHttpResponse} are available.
    */
@@ -119,4 +167,52 @@ public class SpringWebFluxServerHttpExchange extends AbstractServerHttpExchange
         null;
   }
 
+  // Requests chunks one by one so that the demand stops while paused
+  private class BodySubscriber extends BaseSubscriber<ByteBuffer> {
+    final BatchAction<ByteBuffer> chunkAction;
+    // Whether a request is owed to resume
+    final AtomicBoolean suspended = new AtomicBoolean();
+    volatile boolean paused;
+
+    BodySubscriber(BatchAction<ByteBuffer> chunkAction) {
+      this.chunkAction = chunkAction;
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+      request(1);
+    }
+
+    @Override
+    protected void hookOnNext(ByteBuffer chunk) {
+      chunkAction.on(chunk);
+      if (paused) {
+        suspended.set(true);
+        // If resume has been called in the meantime, whichever takes the flag
+        // back requests the next chunk
+        if (paused || !suspended.compareAndSet(true, false)) {
+          return;
+        }
+      }
+      request(1);
+    }
+
+    @Override
+    protected void hookOnComplete() {
+      fireEnd();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+      fireError(throwable);
+    }
+
+    void resume() {
+      paused = false;
+      if (suspended.compareAndSet(true, false)) {
+        request(1);
+      }
+    }
+  }
+
 }
@@ -45,16 +45,16 @@ public class SpringWebFluxServerWebSocket extends AbstractServerWebSocket {
     session.receive().subscribe(message -> {
       switch (message.getType()) {
         case TEXT:
-          textActions.fire(message.getPayloadAsText());
+          fireText(message.getPayloadAsText());
           break;
         case BINARY:
-          binaryActions.fire(message.getPayload().asByteBuffer());
+          fireBinary(message.getPayload().asByteBuffer());
           break;
         // Ignores PING and PONG
         default:
           break;
       }
-    }, errorActions::fire, closeActions::fire);
+    }, this::fireError, this::fireClose);
 
     Flux<WebSocketMessage> flux = Flux.create(messageEmitter -> this.messageEmitter = messageEmitter);
     ConnectableFlux<WebSocketMessage> messages = flux.replay();
@@ -73,12 +73,12 @@ public class SpringWebFluxServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return session.getHandshakeInfo().getHeaders().keySet();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return session.getHandshakeInfo().getHeaders().get(name);
   }
 
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.spring.webmvc4;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.bridge.servlet3.ServletServerHttpExchange;
 import io.cettia.asity.http.ServerHttpExchange;
 import org.springframework.web.servlet.ModelAndView;
@@ -55,7 +55,7 @@ import javax.servlet.http.HttpServletResponse;
  */
 public class AsityController implements Controller {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
 
   @Override
   public ModelAndView handleRequest(HttpServletRequest request, HttpServletResponse response) {
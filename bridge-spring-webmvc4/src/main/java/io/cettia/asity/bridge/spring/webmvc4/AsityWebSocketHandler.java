@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.spring.webmvc4;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
@@ -47,7 +47,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class AsityWebSocketHandler extends AbstractWebSocketHandler {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
   private Map<String, SpringWebMvcServerWebSocket> sessions = new ConcurrentHashMap<>();
 
   @Override
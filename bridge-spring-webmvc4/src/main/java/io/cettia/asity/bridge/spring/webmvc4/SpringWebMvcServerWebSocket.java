@@ -41,19 +41,19 @@ public class SpringWebMvcServerWebSocket extends AbstractServerWebSocket {
   }
 
   void onClose() {
-    closeActions.fire();
+    fireClose();
   }
 
   void onError(Throwable e) {
-    errorActions.fire(e);
+    fireError(e);
   }
 
   void onTextMessage(String textMessage) {
-    textActions.fire(textMessage);
+    fireText(textMessage);
   }
 
   void onBinaryMessage(ByteBuffer binaryMessage) {
-    binaryActions.fire(binaryMessage);
+    fireBinary(binaryMessage);
   }
 
   @Override
@@ -63,12 +63,12 @@ public class SpringWebMvcServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return session.getHandshakeHeaders().keySet();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return session.getHandshakeHeaders().get(name);
   }
 
@@ -77,7 +77,7 @@ public class SpringWebMvcServerWebSocket extends AbstractServerWebSocket {
     try {
       session.sendMessage(new BinaryMessage(byteBuffer));
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
@@ -86,7 +86,7 @@ public class SpringWebMvcServerWebSocket extends AbstractServerWebSocket {
     try {
       session.sendMessage(new TextMessage(data));
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
@@ -95,7 +95,7 @@ public class SpringWebMvcServerWebSocket extends AbstractServerWebSocket {
     try {
       session.close();
     } catch (IOException e) {
-      errorActions.fire(e);
+      fireError(e);
     }
   }
 
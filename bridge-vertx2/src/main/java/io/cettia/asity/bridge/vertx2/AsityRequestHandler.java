@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.vertx2;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.http.HttpServerRequest;
@@ -35,7 +35,7 @@ import org.vertx.java.core.http.HttpServerRequest;
  */
 public class AsityRequestHandler implements Handler<HttpServerRequest> {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
 
   @Override
   public void handle(HttpServerRequest request) {
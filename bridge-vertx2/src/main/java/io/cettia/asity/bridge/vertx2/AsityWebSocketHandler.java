@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.vertx2;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 import org.vertx.java.core.Handler;
 
@@ -34,7 +34,7 @@ import org.vertx.java.core.Handler;
  */
 public class AsityWebSocketHandler implements Handler<org.vertx.java.core.http.ServerWebSocket> {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
 
   @Override
   public void handle(org.vertx.java.core.http.ServerWebSocket ws) {
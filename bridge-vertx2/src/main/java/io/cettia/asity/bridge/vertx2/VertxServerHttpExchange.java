@@ -15,7 +15,7 @@
  */
 package io.cettia.asity.bridge.vertx2;
 
-import io.cettia.asity.action.Action;
+import io.cettia.asity.action.BatchAction;
 import io.cettia.asity.http.AbstractServerHttpExchange;
 import io.cettia.asity.http.HttpMethod;
 import io.cettia.asity.http.HttpStatus;
@@ -25,7 +25,11 @@ import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.HttpServerResponse;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 
@@ -38,19 +42,25 @@ public class VertxServerHttpExchange extends AbstractServerHttpExchange {
 
   private final HttpServerRequest request;
   private final HttpServerResponse response;
+  private Buffer pending;
 
   public VertxServerHttpExchange(HttpServerRequest request) {
     this.request = request;
     this.response = request.response();
-    request.exceptionHandler(errorActions::fire);
-    response.exceptionHandler(errorActions::fire)
+    request.exceptionHandler(this::fireError);
+    response.exceptionHandler(this::fireError)
     .closeHandler(new VoidHandler() {
       @Override
       protected void handle() {
-        closeActions.fire();
+        fireClose();
       }
     })
-    .setChunked(true);
+    .drainHandler(new VoidHandler() {
+      @Override
+      protected void handle() {
+        fireWritable();
+      }
+    });
   }
 
   @Override
@@ -64,26 +74,36 @@ public class VertxServerHttpExchange extends AbstractServerHttpExchange {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return request.headers().names();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return request.headers().getAll(name);
   }
 
   @Override
-  protected void doRead(final Action<ByteBuffer> chunkAction) {
+  protected void doRead(final BatchAction<ByteBuffer> chunkAction) {
     request.dataHandler(body -> chunkAction.on(body.getByteBuf().nioBuffer()))
     .endHandler(new VoidHandler() {
       @Override
       protected void handle() {
-        endActions.fire();
+        fireEnd();
       }
     });
   }
 
+  @Override
+  protected void doPause() {
+    request.pause();
+  }
+
+  @Override
+  protected void doResume() {
+    request.resume();
+  }
+
   @Override
   protected void doSetStatus(HttpStatus status) {
     response.setStatusCode(status.code()).setStatusMessage(status.reason());
@@ -96,12 +116,90 @@ public class VertxServerHttpExchange extends AbstractServerHttpExchange {
 
   @Override
   protected void doWrite(ByteBuffer byteBuffer) {
-    response.write(new Buffer().setBytes(0, byteBuffer));
+    // Copies the bytes right into the pending buffer, so chunks written at
+    // once through doWrite(ByteBuffer[]) are simply appended one by one
+    if (pending == null) {
+      pending = new Buffer(byteBuffer.remaining());
+    }
+    if (byteBuffer.hasArray()) {
+      pending.appendBytes(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+        byteBuffer.remaining());
+    } else {
+      // Vert.x takes the limit as the length of the given buffer
+      pending.setBytes(pending.length(), byteBuffer.slice());
+    }
+  }
+
+  @Override
+  protected void doWrite(String data, Charset charset) {
+    write(new Buffer(data, charset.name()));
+  }
+
+  // Vert.x writes each buffer to the connection as it's given, so buffers
+  // written before a flush are gathered into one
+  private void write(Buffer buffer) {
+    if (pending == null) {
+      pending = buffer;
+    } else {
+      pending.appendBuffer(buffer);
+    }
+  }
+
+  @Override
+  protected boolean doIsWritable() {
+    return !response.writeQueueFull();
+  }
+
+  @Override
+  protected void doFlush() {
+    if (pending != null) {
+      // A response ended without a flush is sent with content-length by
+      // Vert.x, so the chunked encoding is used only when it's needed
+      if (!response.isChunked() && !response.headers().contains("content-length")) {
+        response.setChunked(true);
+      }
+      response.write(pending);
+      pending = null;
+    }
   }
 
   @Override
   protected void doEnd() {
-    response.end();
+    if (pending != null) {
+      response.end(pending);
+      pending = null;
+    } else {
+      response.end();
+    }
+  }
+
+  @Override
+  protected void doSendFile(Path path, long offset, long length) {
+    // Vert.x 2 can send only a whole file, and it answers with its own status
+    // without calling back if the path isn't a regular file
+    if (offset != 0 || length != fileSize(path) || !Files.isRegularFile(path)) {
+      super.doSendFile(path, offset, length);
+      return;
+    }
+    response.sendFile(path.toAbsolutePath().toString(), result -> {
+      if (result.failed()) {
+        fireError(result.cause());
+        doAbort();
+      }
+    });
+  }
+
+  @Override
+  protected void doAbort() {
+    response.close();
+  }
+
+  private static long fileSize(Path path) {
+    try {
+      return Files.size(path);
+    } catch (IOException e) {
+      return -1;
+    }
   }
 
   /**
@@ -39,19 +39,19 @@ public class VertxServerWebSocket extends AbstractServerWebSocket {
     socket.closeHandler(new VoidHandler() {
       @Override
       protected void handle() {
-        closeActions.fire();
+        fireClose();
       }
     })
-    .exceptionHandler(errorActions::fire)
+    .exceptionHandler(this::fireError)
     .frameHandler(f -> {
       // Deal with only data frames
       WebSocketFrameInternal frame = (WebSocketFrameInternal) f;
       switch (frame.type()) {
         case TEXT:
-          textActions.fire(frame.textData());
+          fireText(frame.textData());
           break;
         case BINARY:
-          binaryActions.fire(frame.getBinaryData().nioBuffer());
+          fireBinary(frame.getBinaryData().nioBuffer());
           break;
         default:
           break;
@@ -65,12 +65,12 @@ public class VertxServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return socket.headers().names();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return socket.headers().getAll(name);
   }
 
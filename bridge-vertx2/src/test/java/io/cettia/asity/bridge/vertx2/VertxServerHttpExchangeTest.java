@@ -19,12 +19,18 @@ import io.cettia.asity.action.Action;
 import io.cettia.asity.http.ServerHttpExchange;
 import io.cettia.asity.test.ServerHttpExchangeTestBase;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.http.HttpMethod;
 import org.junit.Test;
+import org.vertx.java.core.Vertx;
 import org.vertx.java.core.VertxFactory;
 import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.RouteMatcher;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -32,11 +38,13 @@ import java.util.concurrent.CountDownLatch;
  */
 public class VertxServerHttpExchangeTest extends ServerHttpExchangeTestBase {
 
+  private Vertx vertx;
   private HttpServer server;
 
   @Override
   protected void startServer(int port, Action<ServerHttpExchange> requestAction) throws Exception {
-    server = VertxFactory.newVertx().createHttpServer();
+    vertx = VertxFactory.newVertx();
+    server = vertx.createHttpServer();
     RouteMatcher matcher = new RouteMatcher();
     matcher.all(TEST_PATH, new AsityRequestHandler().onhttp(requestAction));
     server.requestHandler(matcher);
@@ -61,4 +69,33 @@ public class VertxServerHttpExchangeTest extends ServerHttpExchangeTestBase {
     await();
   }
 
+  // Vert.x 2 requires the request to be resumed on its event loop
+  @Override
+  @Test
+  public void testPauseAndResume() throws Throwable {
+    final byte[] body = new byte[256 * 1024];
+    for (int i = 0; i < body.length; i++) {
+      body[i] = (byte) (i % 251);
+    }
+    requestAction(http -> {
+      ByteArrayOutputStream read = new ByteArrayOutputStream();
+      http.onchunk((ByteBuffer chunk) -> {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        read.write(bytes, 0, bytes.length);
+        http.pause();
+        vertx.setTimer(1, id -> http.resume());
+      })
+      .onend($ -> {
+        threadAssertTrue(Arrays.equals(read.toByteArray(), body));
+        resume();
+      })
+      .readAsBinary();
+    });
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new BytesContentProvider(body), "application/octet-stream")
+    .send(new Response.Listener.Adapter());
+    await();
+  }
+
 }
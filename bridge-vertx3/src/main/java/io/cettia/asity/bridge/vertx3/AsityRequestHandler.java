@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.vertx3;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.http.ServerHttpExchange;
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpServerRequest;
@@ -45,7 +45,7 @@ import io.vertx.core.http.HttpServerRequest;
  */
 public class AsityRequestHandler implements Handler<HttpServerRequest> {
 
-  private Actions<ServerHttpExchange> httpActions = new ConcurrentActions<>();
+  private Actions<ServerHttpExchange> httpActions = new LockFreeActions<>();
 
   @Override
   public void handle(HttpServerRequest request) {
@@ -17,7 +17,7 @@ package io.cettia.asity.bridge.vertx3;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.ConcurrentActions;
+import io.cettia.asity.action.LockFreeActions;
 import io.cettia.asity.websocket.ServerWebSocket;
 import io.vertx.core.Handler;
 
@@ -37,7 +37,7 @@ import io.vertx.core.Handler;
  */
 public class AsityWebSocketHandler implements Handler<io.vertx.core.http.ServerWebSocket> {
 
-  private Actions<ServerWebSocket> wsActions = new ConcurrentActions<>();
+  private Actions<ServerWebSocket> wsActions = new LockFreeActions<>();
 
   @Override
   public void handle(io.vertx.core.http.ServerWebSocket ws) {
@@ -34,12 +34,12 @@ public class VertxServerWebSocket extends AbstractServerWebSocket {
 
   public VertxServerWebSocket(io.vertx.core.http.ServerWebSocket socket) {
     this.socket = socket;
-    socket.closeHandler(closeActions::fire).exceptionHandler(errorActions::fire).frameHandler(frame -> {
+    socket.closeHandler($ -> fireClose()).exceptionHandler(this::fireError).frameHandler(frame -> {
       // Deal with only text and binary frames
       if (frame.isText()) {
-        textActions.fire(frame.textData());
+        fireText(frame.textData());
      } else if (frame.isBinary()) {
-        binaryActions.fire(frame.binaryData().getByteBuf().nioBuffer());
+        fireBinary(frame.binaryData().getByteBuf().nioBuffer());
       }
     });
   }
@@ -50,12 +50,12 @@ public class VertxServerWebSocket extends AbstractServerWebSocket {
   }
 
   @Override
-  public Set<String> headerNames() {
+  protected Set<String> doHeaderNames() {
     return socket.headers().names();
   }
 
   @Override
-  public List<String> headers(String name) {
+  protected List<String> doHeaders(String name) {
     return socket.headers().getAll(name);
   }
 
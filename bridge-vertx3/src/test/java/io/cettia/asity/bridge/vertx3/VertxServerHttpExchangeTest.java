@@ -22,6 +22,8 @@ import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerRequest;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.junit.Test;
 
 import java.util.concurrent.CountDownLatch;
@@ -63,4 +65,19 @@ public class VertxServerHttpExchangeTest extends ServerHttpExchangeTestBase {
     await();
   }
 
+  @Test
+  public void testEndWithoutChunkedEncoding() throws Throwable {
+    requestAction(http -> http.end("hello"));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(result.getResponse().getHeaders().get("content-length"), "5");
+        threadAssertEquals(result.getResponse().getHeaders().get("transfer-encoding"), null);
+        threadAssertEquals(getContentAsString(), "hello");
+        resume();
+      }
+    });
+    await();
+  }
+
 }
@@ -17,15 +17,32 @@ package io.cettia.asity.http;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.SimpleActions;
+import io.cettia.asity.action.BatchAction;
+import io.cettia.asity.action.CompactActions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract base class for {@link ServerHttpExchange}.
@@ -37,39 +54,111 @@ public abstract class AbstractServerHttpExchange implements ServerHttpExchange {
   // HTTP 1.1 says that the default charset is ISO-8859-1
   // http://www.w3.org/International/O-HTTP-charset#charset
   private static final String DEFAULT_CHARSET_NAME = "ISO-8859-1";
+  // Actions copy the options so it's safe to share
+  private static final Actions.Options DEFAULT_OPTIONS = new Actions.Options();
+  private static final Actions.Options ONCE_AND_MEMORY = new Actions.Options().once(true).memory(true);
+  private static final Logger logger = LoggerFactory.getLogger(AbstractServerHttpExchange.class);
+  // The size of a region of a file mapped into memory at once
+  private static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
+  private static final BufferPool DEFAULT_BUFFER_POOL = new ThreadLocalBufferPool();
+  // Charsets in use are few, but looking them up each time isn't cheap. Keyed
+  // by the requested name in lower case, which is only stored once the JVM
+  // has found the charset by that name, so that it's bounded by the names and
+  // aliases of the charsets the JVM supports
+  private static final Map<String, Charset> CHARSETS = new ConcurrentHashMap<>();
 
-  protected final Actions<Void> endActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
-  protected final Actions<Throwable> errorActions = new SimpleActions<>();
-  protected final Actions<Void> closeActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
-
-  private final Logger logger = LoggerFactory.getLogger(AbstractServerHttpExchange.class);
-  private final Actions<Object> chunkActions = new SimpleActions<>();
-  private final Actions<Object> bodyActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
-  private final Actions<Void> finishActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
+  // Actions are created on demand as most of them have no action during
+  // the lifecycle of an exchange
+  private Actions<Object> chunkActions;
+  private Actions<Void> endActions;
+  private Actions<Object> bodyActions;
+  private Actions<SpooledBody> spooledBodyActions;
+  private Actions<Void> finishActions;
+  // Fired on I/O threads while attached on others
+  private volatile Actions<Void> writableActions;
+  private Actions<Throwable> errorActions;
+  private Actions<Void> closeActions;
   private String writeCharsetName = DEFAULT_CHARSET_NAME;
+  private CharsetEncoder encoder;
+  private long maxBodySize = Long.MAX_VALUE;
+  private long spoolThreshold = SpooledBody.DEFAULT_THRESHOLD;
+  private BufferPool bufferPool = DEFAULT_BUFFER_POOL;
 
   // Request state
   private boolean reading;
   private boolean readingBody;
-  private boolean requestEnded;
+  private volatile boolean requestEnded;
+  // pause and resume may be called on different threads
+  private final AtomicBoolean paused = new AtomicBoolean();
+  private long readBytes;
+  private TextDecoder textDecoder;
+  private boolean bodyTooLarge;
+  private SpooledBody spooledBody;
+  private long spoolContentLength;
   // Response state
   private boolean writing;
+  private boolean corked;
+  private boolean unflushed;
+  // Set by the thread checking the writability and taken by whichever fires
+  // the writable event
+  private final AtomicBoolean awaitingWritable = new AtomicBoolean();
   private boolean responseEnded;
+  private boolean responseFinished;
+  private boolean closed;
 
-  public AbstractServerHttpExchange() {
-    endActions.add($ -> requestEnded = true);
-    if (logger.isDebugEnabled()) {
-      endActions.add($ -> logger.debug("{} request has ended", this));
-      finishActions.add($ -> logger.debug("{} response has ended", this));
-      errorActions.add(throwable -> logger.debug("{} has received a throwable {}", this, throwable));
-      closeActions.add($ -> logger.debug("{} has been aborted", this));
-    }
+  // The request headers and query parameters are read once on demand
+  private final RequestHead head = new RequestHead(this::doHeaderNames, this::doHeaders,
+    this::uri);
+
+  @Override
+  public Set<String> headerNames() {
+    return head.headerNames();
   }
 
   @Override
   public String header(String name) {
+    // Built on headers(String) for an implementation that overrides it
     List<String> headers = headers(name);
-    return headers != null && headers.size() > 0 ? headers.get(0) : null;
+    return headers != null && !headers.isEmpty() ? headers.get(0) : null;
+  }
+
+  @Override
+  public List<String> headers(String name) {
+    return head.headers(name);
+  }
+
+  /**
+   * Returns the names of the request headers. It's called once per exchange.
+   * The implementation should override it and {@link #doHeaders(String)}
+   * unless it overrides {@link #headerNames()} and {@link #headers(String)}
+   * instead, which bypasses the cache. By default, it throws
+   * {@link UnsupportedOperationException}.
+   */
+  protected Set<String> doHeaderNames() {
+    throw new UnsupportedOperationException("Neither doHeaderNames nor headerNames is overridden");
+  }
+
+  /**
+   * Returns the request headers associated with the given name. It's called
+   * once per header name. See {@link #doHeaderNames()}.
+   */
+  protected List<String> doHeaders(String name) {
+    throw new UnsupportedOperationException("Neither doHeaders nor headers is overridden");
+  }
+
+  @Override
+  public Set<String> paramNames() {
+    return head.paramNames();
+  }
+
+  @Override
+  public String param(String name) {
+    return head.param(name);
+  }
+
+  @Override
+  public List<String> params(String name) {
+    return head.params(name);
   }
 
   @Override
@@ -110,71 +199,326 @@ public abstract class AbstractServerHttpExchange implements ServerHttpExchange {
   public ServerHttpExchange readAsText(String charsetName) {
     if (!reading) {
       reading = true;
-      final Charset charset = Charset.forName(charsetName);
-      doRead(byteBuffer -> {
-        String chunk = charset.decode(byteBuffer).toString();
-        if (logger.isDebugEnabled()) {
-          logger.debug("{} reads a text chunk {} with charset {}", this, chunk, charsetName);
+      textDecoder = new TextDecoder(charset(charsetName));
+      doRead(byteBuffers -> {
+        List<Object> chunks = new ArrayList<>(byteBuffers.size());
+        for (ByteBuffer byteBuffer : byteBuffers) {
+          readBytes += byteBuffer.remaining();
+          spool(byteBuffer);
+          String chunk = textDecoder.decode(byteBuffer);
+          if (logger.isDebugEnabled()) {
+            logger.debug("{} reads a text chunk {} with charset {}", this, chunk, charsetName);
+          }
+          // A chunk may end before its first character does
+          if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+          }
+        }
+        if (chunkActions != null) {
+          chunkActions.fireBatch(chunks);
         }
-        chunkActions.fire(chunk);
       });
     }
     return this;
   }
 
+  @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public ServerHttpExchange readAsBinary() {
     if (!reading) {
       reading = true;
-      doRead(byteBuffer -> {
-        if (logger.isDebugEnabled()) {
-          logger.debug("{} reads a binary chunk {}", this, byteBuffer);
+      doRead(byteBuffers -> {
+        for (ByteBuffer byteBuffer : byteBuffers) {
+          readBytes += byteBuffer.remaining();
+          spool(byteBuffer);
+          if (logger.isDebugEnabled()) {
+            logger.debug("{} reads a binary chunk {}", this, byteBuffer);
+          }
+        }
+        if (chunkActions != null) {
+          chunkActions.fireBatch((List) byteBuffers);
         }
-        chunkActions.fire(byteBuffer);
       });
     }
     return this;
   }
 
-  protected abstract void doRead(Action<ByteBuffer> chunkAction);
+  /**
+   * Starts reading the request body. The implementation should call the given
+   * action with each chunk in order, or with several chunks at once through
+   * {@link BatchAction#onBatch(List)} if it reads them at once, and then
+   * {@link #fireEnd()} when the body is fully read. By default, it passes the
+   * action to {@link #doRead(Action)}.
+   */
+  protected void doRead(BatchAction<ByteBuffer> chunkAction) {
+    doRead((Action<ByteBuffer>) chunkAction);
+  }
+
+  /**
+   * Starts reading the request body calling the given action with each chunk.
+   * It's only called by the default {@link #doRead(BatchAction)}, so the
+   * implementation should override either of them. By default, it throws
+   * {@link UnsupportedOperationException}.
+   */
+  protected void doRead(Action<ByteBuffer> chunkAction) {
+    throw new UnsupportedOperationException(
+      "Neither doRead(BatchAction) nor doRead(Action) is overridden");
+  }
+
+  @Override
+  public ServerHttpExchange pause() {
+    if (reading && !requestEnded && paused.compareAndSet(false, true)) {
+      doPause();
+      // A resume on another thread may have been done before the above
+      if (!paused.get()) {
+        doResume();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Stops reading the request body from the underlying connection. Chunks
+   * which have already been read may still be passed to the chunk action.
+   * It and {@link #doResume()} may be called more than once in a row, so
+   * they should be idempotent. By default, it does nothing, so the body is
+   * read regardless of the pause.
+   */
+  protected void doPause() {
+  }
+
+  @Override
+  public ServerHttpExchange resume() {
+    if (paused.compareAndSet(true, false)) {
+      doResume();
+      // A pause on another thread may have been done before the above
+      if (paused.get()) {
+        doPause();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Resumes reading the request body paused by {@link #doPause()}. The
+   * implementation may pass the chunks left unread to the chunk action on the
+   * calling thread before returning. By default, it does nothing.
+   */
+  protected void doResume() {
+  }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public ServerHttpExchange onchunk(Action action) {
-    chunkActions.add(action);
+    chunkActions().add(action);
     return this;
   }
 
+  private Actions<Object> chunkActions() {
+    if (chunkActions == null) {
+      chunkActions = createActions(DEFAULT_OPTIONS);
+    }
+    return chunkActions;
+  }
+
   @Override
   public ServerHttpExchange onend(Action<Void> action) {
-    endActions.add(action);
+    endActions().add(action);
     return this;
   }
 
+  private Actions<Void> endActions() {
+    if (endActions == null) {
+      endActions = createMemoryActions(requestEnded);
+    }
+    return endActions;
+  }
+
+  /**
+   * Fires the end event of the request. It should be called by the
+   * implementation when the request has been fully read.
+   */
+  protected void fireEnd() {
+    if (!requestEnded) {
+      if (textDecoder != null) {
+        String chunk = textDecoder.end();
+        if (!chunk.isEmpty() && chunkActions != null) {
+          chunkActions.fire(chunk);
+        }
+      }
+      requestEnded = true;
+      // The end may have been read before the pause took effect. The
+      // connection has to be read again for the next request
+      resume();
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} request has ended", this);
+      }
+      if (endActions != null) {
+        endActions.fire();
+      }
+    }
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public ServerHttpExchange onbody(Action action) {
     if (!readingBody) {
       readingBody = true;
+      bodyActions = createActions(ONCE_AND_MEMORY);
+      long contentLength = contentLength();
+      // The body is aggregated into a single buffer or string
+      long limit = Math.min(maxBodySize, BodyBuffer.MAX_SIZE);
       if (hasTextBody()) {
-        final StringBuilder body = new StringBuilder();
-        chunkActions.add(data -> body.append((String) data));
-        endActions.add($ -> bodyActions.fire(body.toString()));
+        // The number of characters doesn't exceed the number of bytes in
+        // most charsets including UTF-8 and ISO-8859-1
+        final StringBuilder body = new StringBuilder(
+          contentLength >= 0 && contentLength <= BodyBuffer.MAX_PRESIZE ? (int) contentLength : 16);
+        chunkActions().add(data -> {
+          if (checkBodySize(contentLength, limit)) {
+            body.append((String) data);
+          }
+        });
+        endActions().add($ -> {
+          if (!bodyTooLarge) {
+            bodyActions.fire(body.toString());
+          }
+        });
       } else {
-        final ByteArrayOutputStream body = new ByteArrayOutputStream();
-        chunkActions.add(data -> {
-          ByteBuffer byteBuffer = (ByteBuffer) data;
-          byte[] bytes = new byte[byteBuffer.remaining()];
-          byteBuffer.get(bytes);
-          body.write(bytes, 0, bytes.length);
+        final BodyBuffer body = new BodyBuffer(contentLength <= limit ? contentLength : -1);
+        chunkActions().add(data -> {
+          if (checkBodySize(contentLength, limit)) {
+            body.append((ByteBuffer) data);
+          }
+        });
+        endActions().add($ -> {
+          if (!bodyTooLarge) {
+            bodyActions.fire(body.toByteBuffer());
+          }
         });
-        endActions.add($ -> bodyActions.fire(ByteBuffer.wrap(body.toByteArray())));
       }
     }
     bodyActions.add(action);
     return this;
   }
 
+  @Override
+  public ServerHttpExchange onspooledbody(Action<SpooledBody> action) {
+    if (spooledBodyActions == null) {
+      spooledBodyActions = createActions(ONCE_AND_MEMORY);
+      spoolContentLength = contentLength();
+      spooledBody = new SpooledBody(spoolThreshold, spoolContentLength);
+      endActions().add($ -> {
+        if (spooledBody != null && !bodyTooLarge) {
+          spooledBodyActions.fire(spooledBody.finish());
+        }
+      });
+      // The body is owned by the application only once it's delivered
+      onclose($ -> {
+        if (!requestEnded) {
+          discardSpooledBody();
+        }
+      });
+    }
+    spooledBodyActions.add(action);
+    return this;
+  }
+
+  // Appends the raw chunk to the spooled body if any, regardless of whether
+  // the body is read as text or binary
+  private void spool(ByteBuffer byteBuffer) {
+    if (spooledBody != null) {
+      if (!checkBodySize(spoolContentLength, maxBodySize)) {
+        discardSpooledBody();
+        return;
+      }
+      try {
+        spooledBody.append(byteBuffer);
+      } catch (IOException e) {
+        discardSpooledBody();
+        fireError(e);
+      }
+    }
+  }
+
+  private void discardSpooledBody() {
+    if (spooledBody != null) {
+      try {
+        spooledBody.close();
+      } catch (IOException e) {
+        logger.warn("{} failed to delete the spooled body", this, e);
+      }
+      spooledBody = null;
+    }
+  }
+
+  private static Charset charset(String charsetName) {
+    Charset charset = CHARSETS.get(charsetName);
+    if (charset == null) {
+      // Names of charsets are case-insensitive
+      String key = charsetName.toLowerCase(Locale.ROOT);
+      charset = CHARSETS.get(key);
+      if (charset == null) {
+        charset = Charset.forName(charsetName);
+        CHARSETS.putIfAbsent(key, charset);
+      }
+    }
+    return charset;
+  }
+
+  private long contentLength() {
+    String contentLength = header("content-length");
+    if (contentLength != null) {
+      try {
+        return Long.parseLong(contentLength.trim());
+      } catch (NumberFormatException e) {
+        // Falls through
+      }
+    }
+    return -1;
+  }
+
+  // Fires the error event once the body is found to be larger than the given
+  // limit, from the content-length header or from the bytes read so far
+  private boolean checkBodySize(long contentLength, long limit) {
+    if (bodyTooLarge) {
+      return false;
+    }
+    if (contentLength > limit || readBytes > limit) {
+      bodyTooLarge = true;
+      fireError(new IllegalStateException("Request body exceeds the maximum size of " +
+        limit + " bytes"));
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public ServerHttpExchange setMaxBodySize(long maxBodySize) {
+    this.maxBodySize = maxBodySize;
+    return this;
+  }
+
+  @Override
+  public ServerHttpExchange setSpoolThreshold(long spoolThreshold) {
+    this.spoolThreshold = spoolThreshold;
+    return this;
+  }
+
+  @Override
+  public ServerHttpExchange setBufferPool(BufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+    return this;
+  }
+
+  /**
+   * Returns the pool of buffers to read the request body into. A buffer
+   * acquired from it should be released once the chunk action given to
+   * {@link #doRead(BatchAction)} returns.
+   */
+  protected BufferPool bufferPool() {
+    return bufferPool;
+  }
+
   @Override
   public ServerHttpExchange setStatus(HttpStatus status) {
     if (logger.isDebugEnabled()) {
@@ -219,74 +563,461 @@ public abstract class AbstractServerHttpExchange implements ServerHttpExchange {
 
   @Override
   public ServerHttpExchange write(String data, String charsetName) {
+    writeText(data, charsetName);
+    flushUnlessCorked();
+    return this;
+  }
+
+  private void writeText(String data, String charsetName) {
     writing = true;
+    unflushed = true;
     if (logger.isDebugEnabled()) {
       logger.debug("{} writes a text chunk {} with charset {}", this, data, charsetName);
     }
-    doWrite(Charset.forName(charsetName).encode(data));
-    return this;
+    doWrite(data, charset(charsetName));
+  }
+
+  /**
+   * Writes a text chunk with the given charset. The default implementation
+   * encodes it to a new buffer and calls {@link #doWrite(ByteBuffer)}. An
+   * implementation can override it to encode the text directly into a buffer
+   * of the underlying server.
+   */
+  protected void doWrite(String data, Charset charset) {
+    doWrite(encode(data, charset));
+  }
+
+  private ByteBuffer encode(String data, Charset charset) {
+    // String#getBytes is optimized for these charsets and allocates only the result
+    if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1)
+      || charset.equals(StandardCharsets.US_ASCII)) {
+      return ByteBuffer.wrap(data.getBytes(charset));
+    }
+    if (encoder == null || !encoder.charset().equals(charset)) {
+      encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    try {
+      return encoder.encode(CharBuffer.wrap(data));
+    } catch (CharacterCodingException e) {
+      // Never happens as errors are replaced
+      throw new IllegalStateException(e);
+    }
   }
 
   @Override
   public ServerHttpExchange write(ByteBuffer byteBuffer) {
+    writeBinary(byteBuffer);
+    flushUnlessCorked();
+    return this;
+  }
+
+  private void writeBinary(ByteBuffer byteBuffer) {
     writing = true;
+    unflushed = true;
     if (logger.isDebugEnabled()) {
       logger.debug("{} writes a binary chunk {}", this, byteBuffer);
     }
     doWrite(byteBuffer);
-    return this;
   }
 
+  /**
+   * Writes a binary chunk. It doesn't have to be sent until
+   * {@link #doFlush()} or {@link #doEnd()} is called.
+   */
   protected abstract void doWrite(ByteBuffer byteBuffer);
 
+  @Override
+  public ServerHttpExchange write(ByteBuffer... byteBuffers) {
+    writeBinary(byteBuffers);
+    flushUnlessCorked();
+    return this;
+  }
+
+  private void writeBinary(ByteBuffer[] byteBuffers) {
+    writing = true;
+    unflushed = true;
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} writes binary chunks {}", this, Arrays.toString(byteBuffers));
+    }
+    doWrite(byteBuffers);
+  }
+
+  /**
+   * Writes binary chunks at once. The default implementation calls
+   * {@link #doWrite(ByteBuffer)} with each chunk. An implementation can
+   * override it to write them in a single gathering write.
+   */
+  protected void doWrite(ByteBuffer[] byteBuffers) {
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      doWrite(byteBuffer);
+    }
+  }
+
+  @Override
+  public boolean isWritable() {
+    // Set in advance as the implementation may fire the writable event while
+    // checking the writability
+    awaitingWritable.set(true);
+    boolean writable = doIsWritable();
+    if (writable) {
+      awaitingWritable.set(false);
+    }
+    return writable;
+  }
+
+  /**
+   * Returns whether the response is writable. If it returns {@code false},
+   * the implementation should call {@link #fireWritable()} when the response
+   * becomes writable. By default, it returns {@code true}.
+   */
+  protected boolean doIsWritable() {
+    return true;
+  }
+
+  @Override
+  public ServerHttpExchange onwritable(Action<Void> action) {
+    Actions<Void> actions = writableActions;
+    if (actions == null) {
+      actions = writableActions = createActions(DEFAULT_OPTIONS);
+    }
+    actions.add(action);
+    return this;
+  }
+
+  /**
+   * Fires the writable event. It should be called by the implementation when
+   * the response becomes writable. It's ignored unless {@link #isWritable()}
+   * has returned {@code false} since the last event.
+   */
+  protected void fireWritable() {
+    if (awaitingWritable.compareAndSet(true, false)) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} has become writable", this);
+      }
+      Actions<Void> actions = writableActions;
+      if (actions != null) {
+        actions.fire();
+      }
+    }
+  }
+
+  @Override
+  public ServerHttpExchange cork() {
+    corked = true;
+    return this;
+  }
+
+  @Override
+  public ServerHttpExchange uncork() {
+    corked = false;
+    flushUnlessCorked();
+    return this;
+  }
+
+  private void flushUnlessCorked() {
+    if (!corked && unflushed) {
+      unflushed = false;
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} flushes the response", this);
+      }
+      doFlush();
+    }
+  }
+
+  /**
+   * Sends what has been written so far to the client. By default, it does
+   * nothing, leaving it to the underlying server.
+   */
+  protected void doFlush() {
+  }
+
   @Override
   public ServerHttpExchange end() {
+    return endResponse(this::doEnd);
+  }
+
+  @Override
+  public ServerHttpExchange abort() {
+    return endResponse(this::doAbort);
+  }
+
+  // The given action completes the response in place of doEnd
+  private ServerHttpExchange endResponse(Runnable ender) {
     if (!responseEnded) {
       responseEnded = true;
       if (logger.isDebugEnabled()) {
         logger.debug("{} ends the response", this);
       }
-      doEnd();
-      finishActions.fire();
+      unflushed = false;
+      ender.run();
+      responseFinished = true;
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} response has ended", this);
+      }
+      if (finishActions != null) {
+        finishActions.fire();
+      }
     }
     return this;
   }
 
+  /**
+   * Completes the response, sending what has been written but not flushed.
+   */
   protected abstract void doEnd();
 
+  /**
+   * Ends the response which can't be completed, for example, as a file being
+   * sent fails to be read, so that the client doesn't take what has been
+   * written as the whole body. It's also called by {@link #abort()}. The
+   * default implementation calls
+   * {@link #doEnd()}, which leaves it to the underlying server to notice that
+   * the body is shorter than {@code content-length}. An implementation which
+   * can close the connection should override it to do so.
+   */
+  protected void doAbort() {
+    doEnd();
+  }
+
+  /**
+   * Completes the response with the given body as the whole response body.
+   * It's called instead of {@link #doEnd()} when nothing has been written
+   * before, so that the implementation can send the response at once with
+   * {@code content-length} rather than in chunks. The default implementation
+   * calls {@link #doWrite(ByteBuffer)} and {@link #doEnd()}.
+   */
+  protected void doEnd(ByteBuffer body) {
+    doWrite(body);
+    doEnd();
+  }
+
+  /**
+   * Completes the response with the given chunks as the whole response body.
+   * It's the same with {@link #doEnd(ByteBuffer)} except that the body
+   * consists of several chunks. The default implementation calls
+   * {@link #doWrite(ByteBuffer[])} and {@link #doEnd()}.
+   */
+  protected void doEnd(ByteBuffer[] body) {
+    doWrite(body);
+    doEnd();
+  }
+
   @Override
   public ServerHttpExchange end(String data) {
-    return write(data).end();
+    return end(data, writeCharsetName);
   }
 
+  // The data is flushed by doEnd together with the end of the response
   @Override
   public ServerHttpExchange end(String data, String charsetName) {
-    return write(data, charsetName).end();
+    if (writing || responseEnded) {
+      writeText(data, charsetName);
+      return end();
+    }
+    return end(encode(data, charset(charsetName)));
   }
 
   @Override
   public ServerHttpExchange end(ByteBuffer data) {
-    return write(data).end();
+    if (writing || responseEnded) {
+      writeBinary(data);
+      return end();
+    }
+    // The data is the whole response body
+    writing = true;
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} writes a binary chunk {}", this, data);
+    }
+    return endResponse(() -> doEnd(data));
+  }
+
+  @Override
+  public ServerHttpExchange end(ByteBuffer... data) {
+    if (writing || responseEnded) {
+      writeBinary(data);
+      return end();
+    }
+    // The data is the whole response body
+    writing = true;
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} writes binary chunks {}", this, Arrays.toString(data));
+    }
+    return endResponse(() -> doEnd(data));
+  }
+
+  @Override
+  public ServerHttpExchange sendFile(Path path) {
+    long size = fileSize(path);
+    return size < 0 ? this : sendRegion(path, 0, size);
+  }
+
+  @Override
+  public ServerHttpExchange sendFile(Path path, long offset, long length) {
+    long size = fileSize(path);
+    if (size < 0) {
+      return this;
+    }
+    // Not offset + length > size which may overflow
+    if (offset < 0 || length < 0 || length > size - offset) {
+      throw new IllegalArgumentException("Invalid region: offset " + offset + ", length " + length +
+        " of " + size + " bytes");
+    }
+    return sendRegion(path, offset, length);
+  }
+
+  // A negative value means the file can't be read and the error is fired
+  private long fileSize(Path path) {
+    try {
+      return Files.size(path);
+    } catch (IOException e) {
+      fireError(e);
+      return -1;
+    }
+  }
+
+  private ServerHttpExchange sendRegion(Path path, long offset, long length) {
+    if (responseEnded) {
+      return this;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} sends {} bytes from {} of a file {}", this, length, offset, path);
+    }
+    if (writing) {
+      return endResponse(() -> {
+        if (writeMapped(path, offset, length)) {
+          doEnd();
+        } else {
+          doAbort();
+        }
+      });
+    }
+    // The file is the whole response body
+    writing = true;
+    doSetHeader("content-length", Long.toString(length));
+    return endResponse(() -> doSendFile(path, offset, length));
+  }
+
+  /**
+   * Completes the response with the given region of the file as the whole
+   * response body. It's called instead of {@link #doEnd()} when nothing has
+   * been written before, and {@code content-length} has already been set.
+   * The default implementation maps the file into memory region by region,
+   * writes each through {@link #doWrite(ByteBuffer)} and {@link #doFlush()}
+   * and then calls {@link #doEnd()}. An implementation can override it to
+   * use the server's own file transfer. Errors should be reported through
+   * {@link #fireError(Throwable)}, and the response should then be ended by
+   * {@link #doAbort()} rather than {@link #doEnd()}.
+   */
+  protected void doSendFile(Path path, long offset, long length) {
+    if (writeMapped(path, offset, length)) {
+      doEnd();
+    } else {
+      doAbort();
+    }
+  }
+
+  // Returns false if the file fails to be read and the error is fired
+  private boolean writeMapped(Path path, long offset, long length) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long end = offset + length;
+      for (long position = offset; position < end; position += MAPPED_REGION_SIZE) {
+        long size = Math.min(MAPPED_REGION_SIZE, end - position);
+        doWrite(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+        doFlush();
+      }
+      return true;
+    } catch (IOException e) {
+      fireError(e);
+      return false;
+    }
   }
 
   @Override
   public ServerHttpExchange onfinish(Action<Void> action) {
+    if (finishActions == null) {
+      finishActions = createMemoryActions(responseFinished);
+    }
     finishActions.add(action);
     return this;
   }
 
   @Override
   public ServerHttpExchange onclose(Action<Void> action) {
+    if (closeActions == null) {
+      closeActions = createMemoryActions(closed);
+    }
     closeActions.add(action);
     return this;
   }
 
+  /**
+   * Fires the close event. It should be called by the implementation when the
+   * underlying connection has been closed or aborted.
+   */
+  protected void fireClose() {
+    if (!closed) {
+      closed = true;
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} has been aborted", this);
+      }
+      if (closeActions != null) {
+        closeActions.fire();
+      }
+    }
+  }
+
   @Override
   public ServerHttpExchange onerror(Action<Throwable> action) {
+    if (errorActions == null) {
+      errorActions = createActions(DEFAULT_OPTIONS);
+    }
     errorActions.add(action);
     return this;
   }
 
+  /**
+   * Fires the error event. It should be called by the implementation when an
+   * error occurs while handling the exchange.
+   */
+  protected void fireError(Throwable throwable) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} has received a throwable {}", this, throwable);
+    }
+    if (errorActions != null) {
+      errorActions.fire(throwable);
+    }
+  }
+
+  /**
+   * Creates actions for an event of this exchange. It's called on demand,
+   * the first time an action is added to the event. The default
+   * implementation returns {@link CompactActions} which calls actions in the
+   * firing thread. An implementation can override it to return, for example,
+   * {@link io.cettia.asity.action.AsyncActions} so that actions run on an
+   * executor, as long as it doesn't reuse the fired buffers. For the request
+   * body, that means a {@link BufferPool} which doesn't recycle buffers.
+   * <p/>
+   * The actions of all the events should then share one
+   * {@link io.cettia.asity.action.SerialExecutor} per exchange. Otherwise,
+   * each event is queued on its own, and, for example, the end event may be
+   * delivered before chunks still queued.
+   */
+  protected <T> Actions<T> createActions(Actions.Options options) {
+    return new CompactActions<>(options);
+  }
+
+  // Actions for an event which is fired once and remembered. If the event
+  // has already been fired, the created actions are fired to replay it
+  private Actions<Void> createMemoryActions(boolean fired) {
+    Actions<Void> actions = createActions(ONCE_AND_MEMORY);
+    if (fired) {
+      actions.fire();
+    }
+    return actions;
+  }
+
   @Override
   public String toString() {
     String requestState = requestEnded ? "ENDED" : reading ? "READING" : "UNREAD";
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregates binary chunks of a request body. If the length of the body is
+ * known, chunks are copied once into a buffer of that size. If not, each chunk
+ * is copied as it is and the copies are kept as they are, so that the body
+ * can be read as a scatter view without another copy. They are joined only if
+ * the body is needed as a single buffer. Chunks given to
+ * {@link #append(ByteBuffer)} are left as they are, so they can be shared with
+ * other actions.
+ *
+ * @author Donghwan Kim
+ */
+class BodyBuffer {
+
+  // Not to allocate a huge buffer up front just because of a header
+  static final int MAX_PRESIZE = 1024 * 1024;
+  // A buffer can't be larger than this
+  static final long MAX_SIZE = Integer.MAX_VALUE;
+
+  private ByteBuffer buffer;
+  private List<ByteBuffer> chunks;
+  private long size;
+
+  /**
+   * @param length the expected length of the body or {@code -1} if it's unknown.
+   */
+  BodyBuffer(long length) {
+    if (length >= 0 && length <= MAX_PRESIZE) {
+      buffer = ByteBuffer.allocate((int) length);
+    } else {
+      chunks = new ArrayList<>();
+    }
+  }
+
+  /**
+   * Appends a copy of the given chunk. It throws {@link IllegalStateException}
+   * if the body gets larger than {@link #MAX_SIZE}.
+   */
+  void append(ByteBuffer chunk) {
+    int remaining = chunk.remaining();
+    if (size + remaining > MAX_SIZE) {
+      throw new IllegalStateException("Body exceeds " + MAX_SIZE + " bytes");
+    }
+    size += remaining;
+    if (buffer != null && remaining > buffer.remaining()) {
+      // The body turns out to be longer than expected
+      buffer.flip();
+      chunks = new ArrayList<>();
+      chunks.add(buffer);
+      buffer = null;
+    }
+    ByteBuffer target = buffer != null ? buffer : ByteBuffer.allocate(remaining);
+    int position = chunk.position();
+    target.put(chunk);
+    chunk.position(position);
+    if (buffer == null) {
+      target.flip();
+      chunks.add(target);
+    }
+  }
+
+  long size() {
+    return size;
+  }
+
+  /**
+   * Returns the aggregated body as read-only buffers in order without copying.
+   */
+  ByteBuffer[] toByteBuffers() {
+    if (buffer != null) {
+      return new ByteBuffer[]{((ByteBuffer) buffer.duplicate().flip()).asReadOnlyBuffer()};
+    }
+    ByteBuffer[] byteBuffers = new ByteBuffer[chunks.size()];
+    for (int i = 0; i < byteBuffers.length; i++) {
+      byteBuffers[i] = chunks.get(i).asReadOnlyBuffer();
+    }
+    return byteBuffers;
+  }
+
+  /**
+   * Returns the aggregated body as a read-only buffer. Unless the length of
+   * the body is known or there is only one chunk, the chunks are joined.
+   */
+  ByteBuffer toByteBuffer() {
+    ByteBuffer[] byteBuffers = toByteBuffers();
+    if (byteBuffers.length == 1) {
+      return byteBuffers[0];
+    }
+    ByteBuffer body = ByteBuffer.allocate((int) size);
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      body.put(byteBuffer);
+    }
+    body.flip();
+    return body.asReadOnlyBuffer();
+  }
+
+}
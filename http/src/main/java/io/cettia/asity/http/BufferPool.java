@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pool of buffers which an implementation of {@link ServerHttpExchange} reads
+ * the request body into, if the underlying server reads it into an array
+ * given by the caller.
+ * <p/>
+ * A buffer acquired from the pool is owned by the implementation. It's passed
+ * to the chunk actions and released back to the pool as soon as the actions
+ * return, so an action must copy a chunk to keep it. Implementations must be
+ * thread-safe.
+ *
+ * @author Donghwan Kim
+ * @see ServerHttpExchange#setBufferPool(BufferPool)
+ */
+public interface BufferPool {
+
+  /**
+   * Returns a buffer backed by an accessible array, with its position set to
+   * zero and its limit set to its capacity.
+   */
+  ByteBuffer acquire();
+
+  /**
+   * Gives back a buffer acquired from this pool. The caller must not use it
+   * afterwards.
+   */
+  void release(ByteBuffer buffer);
+
+}
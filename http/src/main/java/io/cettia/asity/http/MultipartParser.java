@@ -0,0 +1,394 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import io.cettia.asity.action.Action;
+import io.cettia.asity.action.Actions;
+import io.cettia.asity.action.SimpleActions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Incremental parser for a {@code multipart/form-data} body. It consumes the
+ * body chunk by chunk and fires an event with the headers of each part, events
+ * with the chunks of its content and an event at its end, so that a large
+ * upload is processed without buffering whole parts.
+ * <p/>
+ * <pre>
+ * String boundary = MultipartParser.boundary(http.header("content-type"));
+ * MultipartParser parser = new MultipartParser(boundary);
+ * parser.onpart(part -&gt; ...).onpartchunk(chunk -&gt; ...).onpartend($ -&gt; ...);
+ * http.&lt;ByteBuffer&gt;onchunk(parser::parse).onend($ -&gt; parser.end()).readAsBinary();
+ * </pre>
+ * A delimiter is searched with the Boyer-Moore-Horspool algorithm, and only the
+ * bytes at the end of a chunk which may begin a delimiter are carried over to
+ * the next chunk. It's not thread-safe.
+ *
+ * @author Donghwan Kim
+ */
+public class MultipartParser {
+
+  // The maximum size of the headers of a part
+  private static final int MAX_HEADER_SIZE = 8192;
+  private static final byte[] NO_BYTES = new byte[0];
+
+  private final byte[] delimiter;
+  // The distance to shift for the byte at the end of the window
+  private final int[] skip = new int[256];
+  private final Actions<Part> partActions = new SimpleActions<>();
+  private final Actions<ByteBuffer> partChunkActions = new SimpleActions<>();
+  private final Actions<Void> partEndActions = new SimpleActions<>();
+  private final Actions<Void> endActions = new SimpleActions<>(new Actions.Options().once(true)
+    .memory(true));
+  private final Actions<Throwable> errorActions = new SimpleActions<>();
+
+  private State state = State.PREAMBLE;
+  // The bytes which may begin a delimiter. The body starts with a delimiter
+  // without the leading CRLF
+  private byte[] carry = {'\r', '\n'};
+  private boolean dash;
+  private byte[] headerBytes = new byte[256];
+  private int headerSize;
+
+  /**
+   * @param boundary the boundary of the body, which can be found by
+   *                 {@link MultipartParser#boundary(String)}.
+   */
+  public MultipartParser(String boundary) {
+    if (boundary == null || boundary.isEmpty()) {
+      throw new IllegalArgumentException("Boundary is required");
+    }
+    this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+    int last = delimiter.length - 1;
+    for (int i = 0; i < skip.length; i++) {
+      skip[i] = delimiter.length;
+    }
+    for (int i = 0; i < last; i++) {
+      skip[delimiter[i] & 0xff] = last - i;
+    }
+  }
+
+  /**
+   * Returns the boundary from the given {@code content-type} header or
+   * {@code null} if it's not given.
+   */
+  public static String boundary(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    int idx = contentType.indexOf("boundary=");
+    if (idx == -1) {
+      return null;
+    }
+    String boundary = contentType.substring(idx + "boundary=".length());
+    int end = boundary.indexOf(';');
+    if (end != -1) {
+      boundary = boundary.substring(0, end);
+    }
+    boundary = boundary.trim();
+    if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+      boundary = boundary.substring(1, boundary.length() - 1);
+    }
+    return boundary;
+  }
+
+  /**
+   * Attaches an action to be called with the headers of a part when the part
+   * begins.
+   */
+  public MultipartParser onpart(Action<Part> action) {
+    partActions.add(action);
+    return this;
+  }
+
+  /**
+   * Attaches an action to be called with a chunk of the content of the
+   * current part. The chunk is valid only until the action returns, so copy
+   * it to keep it.
+   */
+  public MultipartParser onpartchunk(Action<ByteBuffer> action) {
+    partChunkActions.add(action);
+    return this;
+  }
+
+  /**
+   * Attaches an action to be called when the current part ends.
+   */
+  public MultipartParser onpartend(Action<Void> action) {
+    partEndActions.add(action);
+    return this;
+  }
+
+  /**
+   * Attaches an action to be called when the closing delimiter is parsed.
+   */
+  public MultipartParser onend(Action<Void> action) {
+    endActions.add(action);
+    return this;
+  }
+
+  /**
+   * Attaches an action to be called with {@link IllegalStateException} when
+   * the body turns out to be malformed. Once it's fired, the rest of the body
+   * is ignored.
+   */
+  public MultipartParser onerror(Action<Throwable> action) {
+    errorActions.add(action);
+    return this;
+  }
+
+  /**
+   * Parses the given chunk of the body. The chunk is left as it is.
+   */
+  public void parse(ByteBuffer chunk) {
+    if (state == State.EPILOGUE || state == State.FAILED) {
+      return;
+    }
+    ByteBuffer data = chunk;
+    if (carry.length > 0) {
+      // Rare as carried bytes have to look like the start of a delimiter
+      data = ByteBuffer.allocate(carry.length + chunk.remaining());
+      data.put(carry).put(chunk.duplicate()).flip();
+      carry = NO_BYTES;
+    }
+    int position = data.position();
+    int limit = data.limit();
+    while (position < limit) {
+      switch (state) {
+        case PREAMBLE:
+        case CONTENT:
+          int index = search(data, position, limit);
+          if (index == -1) {
+            int end = partialMatch(data, position, limit);
+            fireContent(data, position, end);
+            carry = end < limit ? new byte[limit - end] : NO_BYTES;
+            for (int i = 0; i < carry.length; i++) {
+              carry[i] = data.get(end + i);
+            }
+            return;
+          }
+          fireContent(data, position, index);
+          if (state == State.CONTENT) {
+            partEndActions.fire();
+          }
+          position = index + delimiter.length;
+          dash = false;
+          state = State.DELIMITER;
+          break;
+        case DELIMITER:
+          parseDelimiter(data.get(position++));
+          break;
+        case HEADERS:
+          parseHeaders(data.get(position++));
+          break;
+        default:
+          return;
+      }
+    }
+  }
+
+  // Finds the first delimiter in the given range of the buffer
+  private int search(ByteBuffer data, int from, int to) {
+    int last = delimiter.length - 1;
+    for (int i = from; i + last < to; i += skip[data.get(i + last) & 0xff]) {
+      int j = last;
+      while (data.get(i + j) == delimiter[j]) {
+        if (j == 0) {
+          return i;
+        }
+        j--;
+      }
+    }
+    return -1;
+  }
+
+  // Returns the start of the bytes at the end of the given range which may
+  // begin a delimiter, or the end of the range if there is no such byte
+  private int partialMatch(ByteBuffer data, int from, int to) {
+    for (int i = Math.max(from, to - delimiter.length + 1); i < to; i++) {
+      int j = 0;
+      while (i + j < to && data.get(i + j) == delimiter[j]) {
+        j++;
+      }
+      if (i + j == to) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private void fireContent(ByteBuffer data, int from, int to) {
+    if (state == State.CONTENT && from < to) {
+      ByteBuffer chunk = data.duplicate();
+      chunk.limit(to);
+      chunk.position(from);
+      partChunkActions.fire(chunk);
+    }
+  }
+
+  // After a delimiter, -- closes the body and optional whitespace and CRLF
+  // begin a part
+  private void parseDelimiter(byte b) {
+    if (b == '-') {
+      if (dash) {
+        state = State.EPILOGUE;
+        endActions.fire();
+      }
+      dash = true;
+    } else if (dash) {
+      fail("Malformed closing delimiter");
+    } else if (b == '\n') {
+      headerSize = 0;
+      state = State.HEADERS;
+    } else if (b != '\r' && b != ' ' && b != '\t') {
+      fail("Malformed delimiter");
+    }
+  }
+
+  // Headers end with an empty line
+  private void parseHeaders(byte b) {
+    if (headerSize == MAX_HEADER_SIZE) {
+      fail("Part headers exceed " + MAX_HEADER_SIZE + " bytes");
+      return;
+    }
+    if (headerSize == headerBytes.length) {
+      byte[] bytes = new byte[Math.min(headerBytes.length << 1, MAX_HEADER_SIZE)];
+      System.arraycopy(headerBytes, 0, bytes, 0, headerSize);
+      headerBytes = bytes;
+    }
+    headerBytes[headerSize++] = b;
+    if (b == '\n' && headersEnded()) {
+      state = State.CONTENT;
+      partActions.fire(new Part(new String(headerBytes, 0, headerSize, StandardCharsets.UTF_8)));
+    }
+  }
+
+  // Whether the headers end with an empty line, CRLF CRLF or LF LF, or the
+  // part has no header at all
+  private boolean headersEnded() {
+    int n = headerSize;
+    byte[] h = headerBytes;
+    if (n == 1 || n == 2 && h[0] == '\r') {
+      return true;
+    }
+    return h[n - 2] == '\n' || n >= 4 && h[n - 4] == '\r' && h[n - 3] == '\n' && h[n - 2] == '\r';
+  }
+
+  private void fail(String message) {
+    state = State.FAILED;
+    errorActions.fire(new IllegalStateException(message));
+  }
+
+  /**
+   * Ends parsing. If the closing delimiter hasn't been parsed, the error
+   * event is fired.
+   */
+  public void end() {
+    if (state != State.EPILOGUE && state != State.FAILED) {
+      fail("Body ended before the closing delimiter");
+    }
+  }
+
+  private enum State {
+    PREAMBLE, DELIMITER, HEADERS, CONTENT, EPILOGUE, FAILED
+  }
+
+  /**
+   * The headers of a part.
+   */
+  public static class Part {
+    private final Map<String, List<String>> headers;
+
+    Part(String text) {
+      Map<String, List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (String line : text.split("\r?\n")) {
+        int idx = line.indexOf(':');
+        if (idx > 0) {
+          map.computeIfAbsent(line.substring(0, idx).trim(), $ -> new ArrayList<>())
+          .add(line.substring(idx + 1).trim());
+        }
+      }
+      this.headers = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Returns the names of the headers.
+     */
+    public Set<String> headerNames() {
+      return headers.keySet();
+    }
+
+    /**
+     * Returns the first value of the header of the given name ignoring case
+     * or {@code null} if it's not given.
+     */
+    public String header(String name) {
+      List<String> values = headers.get(name);
+      return values != null ? values.get(0) : null;
+    }
+
+    /**
+     * Returns the values of the header of the given name ignoring case.
+     */
+    public List<String> headers(String name) {
+      List<String> values = headers.get(name);
+      return values != null ? Collections.unmodifiableList(values) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the {@code name} parameter of the {@code content-disposition}
+     * header, which is the name of the form field.
+     */
+    public String name() {
+      return dispositionParam("name");
+    }
+
+    /**
+     * Returns the {@code filename} parameter of the
+     * {@code content-disposition} header or {@code null} if the part isn't a
+     * file.
+     */
+    public String filename() {
+      return dispositionParam("filename");
+    }
+
+    private String dispositionParam(String name) {
+      String disposition = header("content-disposition");
+      if (disposition == null) {
+        return null;
+      }
+      for (String param : disposition.split(";")) {
+        int idx = param.indexOf('=');
+        if (idx > 0 && param.substring(0, idx).trim().equalsIgnoreCase(name)) {
+          String value = param.substring(idx + 1).trim();
+          if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+          }
+          return value;
+        }
+      }
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The headers and the query parameters of a request, which are read from the
+ * underlying server and parsed once on demand for
+ * {@link AbstractServerHttpExchange}. The websocket module keeps its own copy
+ * for the handshake request so as not to depend on this module.
+ * <p/>
+ * It may be accessed by multiple threads. Threads racing on the first access
+ * may read the request more than once, but they all see complete maps.
+ *
+ * @author Donghwan Kim
+ */
+class RequestHead {
+
+  private final Supplier<Set<String>> headerNamesReader;
+  private final Function<String, List<String>> headersReader;
+  private final Supplier<String> uriReader;
+  // Immutable once built, so publishing through volatile fields is enough
+  private volatile Map<String, List<String>> headers;
+  private volatile Map<String, List<String>> params;
+
+  /**
+   * @param headerNamesReader reads the names of the headers from the server.
+   * @param headersReader reads the headers of the given name from the server.
+   * @param uriReader reads the request URI including the query string.
+   */
+  RequestHead(Supplier<Set<String>> headerNamesReader, Function<String, List<String>>
+    headersReader, Supplier<String> uriReader) {
+    this.headerNamesReader = headerNamesReader;
+    this.headersReader = headersReader;
+    this.uriReader = uriReader;
+  }
+
+  /**
+   * Returns the names of the headers. The set ignores case.
+   */
+  public Set<String> headerNames() {
+    return headerMap().keySet();
+  }
+
+  /**
+   * Returns the first header of the given name ignoring case or {@code null}.
+   */
+  public String header(String name) {
+    List<String> values = headerMap().get(name);
+    return values != null ? values.get(0) : null;
+  }
+
+  /**
+   * Returns the headers of the given name ignoring case.
+   */
+  public List<String> headers(String name) {
+    List<String> values = headerMap().get(name);
+    return values != null ? values : Collections.emptyList();
+  }
+
+  private Map<String, List<String>> headerMap() {
+    Map<String, List<String>> map = headers;
+    if (map == null) {
+      // Looking up a tree map with a case-insensitive comparator allocates
+      // nothing unlike lower-casing the name for a hash map
+      Map<String, List<String>> tree = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (String name : headerNamesReader.get()) {
+        if (!tree.containsKey(name)) {
+          List<String> values = headersReader.apply(name);
+          if (values != null && !values.isEmpty()) {
+            tree.put(name, Collections.unmodifiableList(new ArrayList<>(values)));
+          }
+        }
+      }
+      map = headers = Collections.unmodifiableMap(tree);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the names of the query parameters.
+   */
+  public Set<String> paramNames() {
+    return paramMap().keySet();
+  }
+
+  /**
+   * Returns the first query parameter of the given name or {@code null}.
+   */
+  public String param(String name) {
+    List<String> values = paramMap().get(name);
+    return values != null ? values.get(0) : null;
+  }
+
+  /**
+   * Returns the query parameters of the given name.
+   */
+  public List<String> params(String name) {
+    List<String> values = paramMap().get(name);
+    return values != null ? values : Collections.emptyList();
+  }
+
+  private Map<String, List<String>> paramMap() {
+    Map<String, List<String>> map = params;
+    if (map == null) {
+      map = params = parseQuery(uriReader.get());
+    }
+    return map;
+  }
+
+  private static Map<String, List<String>> parseQuery(String uri) {
+    int start = uri.indexOf('?');
+    if (start < 0) {
+      return Collections.emptyMap();
+    }
+    int end = uri.indexOf('#', start);
+    if (end < 0) {
+      end = uri.length();
+    }
+    Map<String, List<String>> map = new LinkedHashMap<>();
+    for (int i = start + 1; i < end; ) {
+      int next = uri.indexOf('&', i);
+      if (next < 0 || next > end) {
+        next = end;
+      }
+      if (next > i) {
+        int eq = uri.indexOf('=', i);
+        boolean valued = eq >= 0 && eq < next;
+        String name = decode(uri.substring(i, valued ? eq : next));
+        String value = valued ? decode(uri.substring(eq + 1, next)) : "";
+        map.computeIfAbsent(name, $ -> new ArrayList<>(1)).add(value);
+      }
+      i = next + 1;
+    }
+    map.replaceAll(($, values) -> Collections.unmodifiableList(values));
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static String decode(String s) {
+    try {
+      return URLDecoder.decode(s, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      // Never happens as UTF-8 is always supported
+      throw new IllegalStateException(e);
+    } catch (IllegalArgumentException e) {
+      // A malformed escape is kept as it is
+      return s;
+    }
+  }
+
+}
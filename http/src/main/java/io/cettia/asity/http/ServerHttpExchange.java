@@ -18,6 +18,7 @@ package io.cettia.asity.http;
 import io.cettia.asity.action.Action;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 
@@ -43,8 +44,9 @@ public interface ServerHttpExchange {
   HttpMethod method();
 
   /**
-   * The names of the request headers. HTTP header is not case-sensitive but
-   * {@link Set} is case-sensitive.
+   * The names of the request headers. As HTTP header is not
+   * case-sensitive, so is {@link Set#contains(Object)} of the returned set.
+   * The headers are read once and cached with the exchange.
    */
   Set<String> headerNames();
 
@@ -59,6 +61,25 @@ public interface ServerHttpExchange {
    */
   List<String> headers(String name);
 
+  /**
+   * The names of the query parameters of the request URI, decoded in UTF-8.
+   */
+  Set<String> paramNames();
+
+  /**
+   * Returns the first query parameter associated with the given name or
+   * {@code null} if no parameter is found. An empty string is returned for
+   * a parameter without value.
+   */
+  String param(String name);
+
+  /**
+   * Returns the query parameters associated with the given name or empty
+   * list if no parameter is found. The query string is parsed once and
+   * cached with the exchange.
+   */
+  List<String> params(String name);
+
   /**
    * Reads the request body. If the request header, {@code content-type},
    * starts with {@code text/}, the body is read as text, and if not, as
@@ -122,13 +143,35 @@ public interface ServerHttpExchange {
   ServerHttpExchange readAsBinary();
 
   /**
-   * Attaches an action to be called with a chunk from the request body.
+   * Attaches an action to be called with a chunk from the request body. A
+   * binary chunk is valid only until the action returns as the underlying
+   * buffer may be recycled to read the next chunk, so copy it to keep it.
    *
    * @param <T> The allowed data type. {@link String} for text body and {@link ByteBuffer} for
    *           binary body.
    */
   <T> ServerHttpExchange onchunk(Action<T> action);
 
+  /**
+   * Stops reading the request body until {@link ServerHttpExchange#resume()}
+   * so that a client sending faster than the application can consume is
+   * slowed down by the underlying flow control. Chunks which have already
+   * been read may still be passed to {@link ServerHttpExchange#onchunk(Action)}.
+   * It has no effect unless the body is being read.
+   */
+  ServerHttpExchange pause();
+
+  /**
+   * Resumes reading the request body paused by
+   * {@link ServerHttpExchange#pause()}. It and {@code pause} can be called on
+   * any thread. The following chunks are passed to
+   * {@link ServerHttpExchange#onchunk(Action)} on the thread the server reads
+   * the body on, except that on Servlet 3.1 and Atmosphere, the chunks which
+   * have been left unread by the pause are passed on the calling thread within
+   * this method.
+   */
+  ServerHttpExchange resume();
+
   /**
    * Attaches an action to be called when the request is fully read. It's the
    * end of the request.
@@ -145,6 +188,50 @@ public interface ServerHttpExchange {
    */
   <T> ServerHttpExchange onbody(Action<T> action);
 
+  /**
+   * Attaches an action to be called with the whole request body aggregated
+   * into a {@link SpooledBody}. Unlike {@link ServerHttpExchange#onbody(Action)},
+   * the body is written to a temporary file once it gets larger than the spool
+   * threshold, so it's suitable for large uploads. The body consists of the
+   * raw bytes even if it's read as text, and should be closed by the action
+   * once it's no longer needed.
+   * <p/>
+   * Writing to the file blocks the thread that reads the body. On a server
+   * that reads on an event loop like Netty and Vert.x, a slow disk stalls
+   * every connection on that loop, so it shouldn't be used there unless the
+   * threshold is large enough for the expected bodies. Otherwise, read the body
+   * with {@link ServerHttpExchange#onchunk(Action)} and write it on another
+   * thread.
+   */
+  ServerHttpExchange onspooledbody(Action<SpooledBody> action);
+
+  /**
+   * Sets the maximum size in bytes of the request body to be kept in memory by
+   * {@link ServerHttpExchange#onspooledbody(Action)}. A larger body is written
+   * to a temporary file. It should be set before attaching the action. The
+   * default is 1MB.
+   */
+  ServerHttpExchange setSpoolThreshold(long spoolThreshold);
+
+  /**
+   * Sets the maximum size in bytes of the request body to be aggregated by
+   * {@link ServerHttpExchange#onbody(Action)}. If the {@code content-length}
+   * header or the body read so far exceeds it, the aggregation stops, the
+   * body event is not fired and the error event is fired with
+   * {@link IllegalStateException}. There is no limit by default, but as the
+   * body is aggregated into a single buffer, a body larger than
+   * {@link Integer#MAX_VALUE} bytes is always rejected that way.
+   */
+  ServerHttpExchange setMaxBodySize(long maxBodySize);
+
+  /**
+   * Sets the pool of buffers to read the request body into. It's used by
+   * implementations whose server reads the body into a given array, and
+   * should be set before reading. By default, a {@link ThreadLocalBufferPool}
+   * shared by all exchanges is used.
+   */
+  ServerHttpExchange setBufferPool(BufferPool bufferPool);
+
   /**
    * Sets the HTTP status for the response.
    */
@@ -177,6 +264,42 @@ public interface ServerHttpExchange {
    */
   ServerHttpExchange write(ByteBuffer byteBuffer);
 
+  /**
+   * Writes the given binary chunks to the response body at once, in order.
+   * The underlying server writes them together without concatenating them
+   * where possible.
+   */
+  ServerHttpExchange write(ByteBuffer... byteBuffers);
+
+  /**
+   * Returns {@code true} if the response can be written without piling up in
+   * the buffer of the underlying server. Writing to an unwritable response
+   * still works, but a producer faster than the client should stop writing
+   * until {@link ServerHttpExchange#onwritable(Action)} and resume then.
+   */
+  boolean isWritable();
+
+  /**
+   * Attaches an action to be called when the response becomes writable
+   * again after {@link ServerHttpExchange#isWritable()} has returned
+   * {@code false}. The action may be called on the server's thread.
+   */
+  ServerHttpExchange onwritable(Action<Void> action);
+
+  /**
+   * Stops flushing the response body on each write until
+   * {@link ServerHttpExchange#uncork()} so that many small writes are sent in
+   * fewer, larger network writes. By default, each write is flushed.
+   */
+  ServerHttpExchange cork();
+
+  /**
+   * Flushes the response body written since
+   * {@link ServerHttpExchange#cork()} and goes back to flushing each write.
+   * Ending the response also flushes it.
+   */
+  ServerHttpExchange uncork();
+
   /**
    * Completes the response. Each exchange's response must be finished with
    * this method when done. It's the end of the response. This method has no
@@ -184,6 +307,15 @@ public interface ServerHttpExchange {
    */
   ServerHttpExchange end();
 
+  /**
+   * Ends the response which can't be completed, for example, as the source
+   * of the response body fails, so that the client doesn't take what has
+   * been written as the whole body. Where the underlying server allows, the
+   * connection is closed. This method has no side effect if the response has
+   * already ended.
+   */
+  ServerHttpExchange abort();
+
   /**
    * Writes a text chunk to the response body using the charset from the
    * response header, {@code content-type} and completes the response through
@@ -203,6 +335,30 @@ public interface ServerHttpExchange {
    */
   ServerHttpExchange end(ByteBuffer byteBuffer);
 
+  /**
+   * Writes the given binary chunks to the response body at once and
+   * completes the response through {@link ServerHttpExchange#end()}.
+   */
+  ServerHttpExchange end(ByteBuffer... byteBuffers);
+
+  /**
+   * Writes the given file to the response body and completes the response
+   * through {@link ServerHttpExchange#end()}. If nothing has been written, the
+   * file becomes the whole response body and {@code content-length} is set.
+   * The underlying server transfers the file without reading it into the
+   * heap where possible. If the file can't be read, the error event is fired.
+   */
+  ServerHttpExchange sendFile(Path path);
+
+  /**
+   * Writes the given region of the file to the response body and completes
+   * the response through {@link ServerHttpExchange#end()}. It works the same
+   * with {@link ServerHttpExchange#sendFile(Path)} except that only
+   * {@code length} bytes starting from {@code offset} are sent. The region
+   * must be within the file.
+   */
+  ServerHttpExchange sendFile(Path path, long offset, long length);
+
   /**
    * Attaches an action to be called when the response is fully written. It's
    * the end of the response.
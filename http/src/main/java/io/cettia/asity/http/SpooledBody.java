@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Request body aggregated by
+ * {@link ServerHttpExchange#onspooledbody(io.cettia.asity.action.Action)}. The
+ * body is kept in memory as long as it's not larger than the threshold, and
+ * otherwise in a temporary file, so that the heap used for a body is bounded
+ * by the threshold no matter how large the body is.
+ * <p/>
+ * The temporary file is deleted when the body is closed, so the body should be
+ * closed once it's no longer needed. The file is written with blocking I/O on
+ * the thread which reads the request body.
+ *
+ * @author Donghwan Kim
+ */
+public class SpooledBody implements Closeable {
+
+  static final long DEFAULT_THRESHOLD = 1024 * 1024;
+
+  private final long threshold;
+  private BodyBuffer buffer;
+  // The body in memory joined on the first map
+  private ByteBuffer memory;
+  private FileChannel channel;
+  private long size;
+
+  /**
+   * @param threshold the maximum size in bytes of the body to keep in memory.
+   * @param length the expected length of the body or {@code -1} if it's unknown.
+   */
+  SpooledBody(long threshold, long length) {
+    // A body in memory can't be larger than a buffer
+    this.threshold = Math.min(threshold, BodyBuffer.MAX_SIZE);
+    if (length <= threshold) {
+      buffer = new BodyBuffer(length);
+    }
+  }
+
+  /**
+   * Appends the given chunk. Once the body gets larger than the threshold,
+   * what has been kept in memory and the following chunks are written to a
+   * temporary file. The chunk is left as it is.
+   */
+  void append(ByteBuffer chunk) throws IOException {
+    int remaining = chunk.remaining();
+    // If the expected length exceeds the threshold, it's spilled from the start
+    if (channel == null && (buffer == null || size + remaining > threshold)) {
+      spill();
+    }
+    size += remaining;
+    if (channel == null) {
+      buffer.append(chunk);
+    } else {
+      write(chunk.duplicate());
+    }
+  }
+
+  private void spill() throws IOException {
+    Path path = Files.createTempFile("asity-", ".body");
+    try {
+      channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.DELETE_ON_CLOSE);
+    } catch (IOException e) {
+      Files.deleteIfExists(path);
+      throw e;
+    }
+    if (buffer != null) {
+      for (ByteBuffer byteBuffer : buffer.toByteBuffers()) {
+        write(byteBuffer);
+      }
+      buffer = null;
+    }
+  }
+
+  private void write(ByteBuffer byteBuffer) throws IOException {
+    while (byteBuffer.hasRemaining()) {
+      channel.write(byteBuffer);
+    }
+  }
+
+  /**
+   * Ends appending and returns this body.
+   */
+  SpooledBody finish() {
+    if (channel == null && buffer == null) {
+      buffer = new BodyBuffer(0);
+    }
+    return this;
+  }
+
+  /**
+   * Returns the size of the body in bytes.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Returns {@code true} if the body is kept in memory, and {@code false} if
+   * it's written to a temporary file.
+   */
+  public boolean inMemory() {
+    return channel == null;
+  }
+
+  /**
+   * Returns the body as a read-only buffer. If the body is in a temporary
+   * file, the file is mapped into memory rather than read into the heap. As a
+   * buffer can't be larger than {@link Integer#MAX_VALUE} bytes, it throws
+   * {@link IOException} for a body larger than that. Use
+   * {@link #transferTo(long, long, WritableByteChannel)} for such a body.
+   */
+  public ByteBuffer map() throws IOException {
+    if (channel == null) {
+      if (memory == null) {
+        memory = buffer.toByteBuffer();
+      }
+      return memory.duplicate();
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("The body of " + size + " bytes is too large to be mapped");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+  }
+
+  /**
+   * Transfers up to the given number of bytes of the body from the given
+   * position to the given channel and returns the number of bytes actually
+   * transferred. If the body is in a temporary file, it may be done without
+   * copying through {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+   */
+  public long transferTo(long position, long count, WritableByteChannel target) throws
+    IOException {
+    if (channel != null) {
+      return channel.transferTo(position, count, target);
+    }
+    // Only the buffer that contains the position is written, which is allowed
+    // as the number of bytes transferred may be less than requested
+    long offset = 0;
+    for (ByteBuffer byteBuffer : buffer.toByteBuffers()) {
+      int length = byteBuffer.remaining();
+      if (position < offset + length) {
+        byteBuffer.position((int) (position - offset));
+        byteBuffer.limit((int) Math.min(length, position - offset + count));
+        return target.write(byteBuffer);
+      }
+      offset += length;
+    }
+    return 0;
+  }
+
+  /**
+   * Deletes the temporary file if any.
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes a text body chunk by chunk with one {@link CharsetDecoder}. Bytes of
+ * a character which is split across chunks are carried over to the next chunk
+ * and the output buffer is reused, so it's not thread-safe. Malformed input
+ * is replaced as {@link Charset#decode(ByteBuffer)} does.
+ *
+ * @author Donghwan Kim
+ */
+class TextDecoder {
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final CharsetDecoder decoder;
+  // Bytes of an incomplete character, in write mode. Created on demand as
+  // most chunks end with a complete character
+  private ByteBuffer carry;
+  private CharBuffer out = CharBuffer.allocate(0);
+
+  TextDecoder(Charset charset) {
+    this.decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * Decodes the given chunk. A trailing incomplete character is kept until
+   * the next chunk.
+   */
+  String decode(ByteBuffer in) {
+    prepare(in.remaining());
+    // Completes the carried character with bytes from the chunk one by one
+    while (carried() > 0 && in.hasRemaining()) {
+      carry.put(in.get()).flip();
+      decoder.decode(carry, out, false);
+      carry.compact();
+    }
+    decoder.decode(in, out, false);
+    if (in.hasRemaining()) {
+      if (carry == null) {
+        carry = ByteBuffer.allocate(16);
+      }
+      carry.put(in);
+    }
+    return ((CharBuffer) out.flip()).toString();
+  }
+
+  /**
+   * Decodes what is left at the end of the input, which is empty unless the
+   * input ends with an incomplete character.
+   */
+  String end() {
+    prepare(0);
+    decoder.decode(carry != null ? (ByteBuffer) carry.flip() : EMPTY, out, true);
+    decoder.flush(out);
+    if (carry != null) {
+      carry.clear();
+    }
+    decoder.reset();
+    return ((CharBuffer) out.flip()).toString();
+  }
+
+  private int carried() {
+    return carry != null ? carry.position() : 0;
+  }
+
+  private void prepare(int bytes) {
+    int capacity = (int) ((bytes + carried()) * (double) decoder.maxCharsPerByte()) + 1;
+    if (out.capacity() < capacity) {
+      out = CharBuffer.allocate(capacity);
+    } else {
+      out.clear();
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * {@link BufferPool} which caches released buffers per thread. Servers read
+ * the request body and call the chunk actions in the same thread, so a buffer
+ * is usually released to the thread which acquired it and no synchronization
+ * is needed. Each thread keeps up to the given number of buffers and the
+ * rest are left to the garbage collector, so the memory held by the pool is
+ * bounded by the number of threads.
+ * <p/>
+ * With {@code maxBuffersPerThread} of zero, it allocates a new buffer every
+ * time, which is needed if chunk actions keep the given buffers, for
+ * example, to handle them later on another thread.
+ *
+ * @author Donghwan Kim
+ */
+public class ThreadLocalBufferPool implements BufferPool {
+
+  private final int bufferSize;
+  private final int maxBuffersPerThread;
+  private final ThreadLocal<ArrayDeque<ByteBuffer>> buffers =
+    ThreadLocal.withInitial(ArrayDeque::new);
+
+  /**
+   * Creates a pool of 8KB buffers keeping up to 16 buffers per thread, which
+   * is enough for a batch of chunks read at once.
+   */
+  public ThreadLocalBufferPool() {
+    this(8192, 16);
+  }
+
+  public ThreadLocalBufferPool(int bufferSize, int maxBuffersPerThread) {
+    if (bufferSize <= 0 || maxBuffersPerThread < 0) {
+      throw new IllegalArgumentException("Invalid pool: buffer size " + bufferSize + ", max " +
+        "buffers per thread " + maxBuffersPerThread);
+    }
+    this.bufferSize = bufferSize;
+    this.maxBuffersPerThread = maxBuffersPerThread;
+  }
+
+  @Override
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = maxBuffersPerThread > 0 ? buffers.get().pollLast() : null;
+    return buffer != null ? buffer : ByteBuffer.allocate(bufferSize);
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    // Buffers from elsewhere are left alone
+    if (maxBuffersPerThread > 0 && buffer.capacity() == bufferSize && buffer.hasArray()) {
+      ArrayDeque<ByteBuffer> cached = buffers.get();
+      if (cached.size() < maxBuffersPerThread) {
+        buffer.clear();
+        cached.addLast(buffer);
+      }
+    }
+  }
+
+}
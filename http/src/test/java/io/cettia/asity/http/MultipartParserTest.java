@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.http;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Donghwan Kim
+ */
+public class MultipartParserTest {
+
+  private static final String BODY = "preamble\r\n" +
+    "--boundary\r\n" +
+    "Content-Disposition: form-data; name=\"field\"\r\n" +
+    "\r\n" +
+    "value\r\n" +
+    "--boundary\r\n" +
+    "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+    "Content-Type: text/plain\r\n" +
+    "\r\n" +
+    "line1\r\n--boundar\r\n--not-a-delimiter\r\nline2\r\n" +
+    "--boundary--\r\n" +
+    "epilogue";
+  private static final List<String> EVENTS = Arrays.asList("part field null", "content value",
+    "part file a.txt", "content line1\r\n--boundar\r\n--not-a-delimiter\r\nline2", "end");
+
+  @Test
+  public void testBoundary() {
+    assertThat(MultipartParser.boundary("multipart/form-data; boundary=abc"), is("abc"));
+    assertThat(MultipartParser.boundary("multipart/form-data; boundary=\"a b\"; x=y"), is("a b"));
+    assertThat(MultipartParser.boundary("multipart/form-data"), nullValue());
+    assertThat(MultipartParser.boundary(null), nullValue());
+  }
+
+  @Test
+  public void testWhole() {
+    assertThat(parse(BODY, () -> Integer.MAX_VALUE), is(EVENTS));
+  }
+
+  @Test
+  public void testByteByByte() {
+    assertThat(parse(BODY, () -> 1), is(EVENTS));
+  }
+
+  @Test
+  public void testRandomSplits() {
+    for (int seed = 0; seed < 200; seed++) {
+      Random random = new Random(seed);
+      assertThat("seed " + seed, parse(BODY, () -> 1 + random.nextInt(24)), is(EVENTS));
+    }
+  }
+
+  @Test
+  public void testNoPreamble() {
+    String body = "--boundary\r\n\r\nvalue\r\n--boundary--";
+    assertThat(parse(body, () -> 1), contains("part null null", "content value", "end"));
+  }
+
+  @Test
+  public void testPartWithoutHeaders() {
+    String body = "--boundary\r\n\r\nfirst\r\n--boundary\n\nsecond\r\n--boundary--";
+    assertThat(parse(body, () -> Integer.MAX_VALUE), contains("part null null", "content first",
+      "part null null", "content second", "end"));
+  }
+
+  @Test
+  public void testLineFeedHeaders() {
+    // A header line of a single character doesn't end the headers
+    String body = "--boundary\nA: 1\nX\nContent-Disposition: form-data; name=\"b\"\n\n" +
+      "value\r\n--boundary--";
+    assertThat(parse(body, () -> 1), contains("part b null", "content value", "end"));
+  }
+
+  @Test
+  public void testEmptyContent() {
+    String body = "--boundary\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\n" +
+      "\r\n--boundary--";
+    assertThat(parse(body, () -> 1), contains("part a null", "content ", "end"));
+  }
+
+  @Test
+  public void testMalformedClosingDelimiter() {
+    String body = "--boundary\r\n\r\nvalue\r\n--boundary-x";
+    assertThat(parse(body, () -> Integer.MAX_VALUE), contains("part null null", "content value",
+      "error Malformed closing delimiter"));
+  }
+
+  @Test
+  public void testMalformedDelimiter() {
+    String body = "--boundary\r\n\r\nvalue\r\n--boundaryx\r\n\r\nvalue\r\n--boundary--";
+    assertThat(parse(body, () -> Integer.MAX_VALUE), contains("part null null", "content value",
+      "error Malformed delimiter"));
+  }
+
+  @Test
+  public void testHeaderSizeLimit() {
+    char[] filler = new char[8192];
+    Arrays.fill(filler, 'a');
+    String body = "--boundary\r\nX-Filler: " + new String(filler) + "\r\n\r\nvalue\r\n" +
+      "--boundary--";
+    assertThat(parse(body, () -> 1000), contains("error Part headers exceed 8192 bytes"));
+  }
+
+  @Test
+  public void testEndBeforeClosingDelimiter() {
+    String body = "--boundary\r\n\r\nval";
+    assertThat(parse(body, () -> Integer.MAX_VALUE), contains("part null null", "content val",
+      "error Body ended before the closing delimiter"));
+  }
+
+  // Parses the body split into chunks of the given sizes and returns the
+  // events fired
+  private static List<String> parse(String body, IntSupplier chunkSize) {
+    List<String> events = new ArrayList<>();
+    StringBuilder content = new StringBuilder();
+    MultipartParser parser = new MultipartParser("boundary");
+    parser.onpart(part -> events.add("part " + part.name() + " " + part.filename()))
+    .onpartchunk(chunk -> content.append(StandardCharsets.ISO_8859_1.decode(chunk)))
+    .onpartend($ -> {
+      events.add("content " + content);
+      content.setLength(0);
+    })
+    .onend($ -> events.add("end"))
+    .onerror(e -> {
+      // Content which has been read so far is flushed to see where it failed
+      if (content.length() > 0) {
+        events.add("content " + content);
+        content.setLength(0);
+      }
+      events.add("error " + e.getMessage());
+    });
+    byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+    for (int i = 0; i < bytes.length; ) {
+      int size = Math.min(chunkSize.getAsInt(), bytes.length - i);
+      ByteBuffer chunk = ByteBuffer.wrap(bytes, i, size).slice();
+      parser.parse(chunk);
+      // The chunk is left as it is
+      assertThat(chunk.remaining(), is(size));
+      i += size;
+    }
+    parser.end();
+    return events;
+  }
+
+}
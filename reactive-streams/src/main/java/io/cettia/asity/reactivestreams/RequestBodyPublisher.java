@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.reactivestreams;
+
+import io.cettia.asity.http.ServerHttpExchange;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Publisher} of the request body of {@link ServerHttpExchange} as
+ * binary chunks. The body is read only as much as requested. Once the demand
+ * runs out, the exchange is paused so that the client is slowed down by the
+ * underlying flow control, and it's resumed on the next request.
+ * <p/>
+ * It reads the body with {@link ServerHttpExchange#readAsBinary()} on the first
+ * request, so the body shouldn't be read in other ways. Each chunk is a copy
+ * owned by the subscriber as the exchange's chunk is valid only until its
+ * action returns. Only one subscriber is allowed.
+ *
+ * @author Donghwan Kim
+ */
+public class RequestBodyPublisher implements Publisher<ByteBuffer> {
+
+  private final ServerHttpExchange http;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  public RequestBodyPublisher(ServerHttpExchange http) {
+    this.http = http;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("Only one subscriber is allowed"));
+      return;
+    }
+    BodySubscription subscription = new BodySubscription(subscriber);
+    http.<ByteBuffer>onchunk(subscription::onChunk)
+    .onend($ -> subscription.onTerminate(null))
+    .onerror(subscription::onTerminate)
+    .onclose($ -> subscription.onTerminate(new IOException("Connection closed")));
+    subscriber.onSubscribe(subscription);
+  }
+
+  private class BodySubscription implements Subscription {
+    private final Subscriber<? super ByteBuffer> subscriber;
+    private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    // The number of drain calls in progress. The one who increases it from 0
+    // drains on behalf of the others so that signals are never concurrent
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean reading = new AtomicBoolean();
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile boolean terminated;
+    private volatile Throwable error;
+    private boolean done;
+
+    BodySubscription(Subscriber<? super ByteBuffer> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (cancelled) {
+        return;
+      }
+      if (n <= 0) {
+        // Signaled in the drain as onNext may be in progress
+        error = new IllegalArgumentException("Non-positive request: " + n);
+        terminated = true;
+        discard();
+        drain();
+        return;
+      }
+      demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+      if (reading.compareAndSet(false, true)) {
+        http.readAsBinary();
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      discard();
+    }
+
+    // The rest of the body is read and ignored to finish the request
+    private void discard() {
+      queue.clear();
+      if (paused.compareAndSet(true, false)) {
+        http.resume();
+      }
+    }
+
+    void onChunk(ByteBuffer chunk) {
+      if (cancelled || terminated) {
+        return;
+      }
+      ByteBuffer copy = ByteBuffer.allocate(chunk.remaining());
+      copy.put(chunk.duplicate()).flip();
+      queue.offer(copy);
+      // Chunks already read may keep coming after the pause
+      if (demand.get() <= queue.size() && paused.compareAndSet(false, true)) {
+        http.pause();
+      }
+      drain();
+    }
+
+    void onTerminate(Throwable throwable) {
+      if (!terminated) {
+        error = throwable;
+        terminated = true;
+        drain();
+      }
+    }
+
+    private void drain() {
+      if (pending.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        while (!cancelled && demand.get() > 0) {
+          // The queue may be cleared in the meantime
+          ByteBuffer chunk = queue.poll();
+          if (chunk == null) {
+            break;
+          }
+          if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          subscriber.onNext(chunk);
+        }
+        if (cancelled) {
+          queue.clear();
+        } else if (queue.isEmpty()) {
+          if (terminated) {
+            if (!done) {
+              done = true;
+              if (error != null) {
+                subscriber.onError(error);
+              } else {
+                subscriber.onComplete();
+              }
+            }
+          } else if (demand.get() > 0 && paused.compareAndSet(true, false)) {
+            http.resume();
+          }
+        }
+      } while (pending.decrementAndGet() != 0);
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.reactivestreams;
+
+import io.cettia.asity.http.HttpStatus;
+import io.cettia.asity.http.ServerHttpExchange;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Subscriber} which writes binary chunks to the response of
+ * {@link ServerHttpExchange} and ends the response on completion. A chunk is
+ * requested one at a time, and the next one is requested only when the
+ * response is writable, that is, right after writing if
+ * {@link ServerHttpExchange#isWritable()} returns {@code true} and on
+ * {@link ServerHttpExchange#onwritable(io.cettia.asity.action.Action)}
+ * otherwise, so a publisher faster than the client is held back by the
+ * underlying server.
+ * <p/>
+ * A chunk is handed over to the exchange, so it shouldn't be modified by the
+ * publisher afterwards. If the publisher fails, the error is logged and the
+ * response ends with {@code 500 Internal Server Error} if nothing has been
+ * written, and is aborted through {@link ServerHttpExchange#abort()}
+ * otherwise, so that the client doesn't take the truncated body as complete.
+ * If the connection is closed or fails, the
+ * subscription is cancelled.
+ *
+ * @author Donghwan Kim
+ */
+public class ResponseBodySubscriber implements Subscriber<ByteBuffer> {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResponseBodySubscriber.class);
+
+  private final ServerHttpExchange http;
+  // Whether a chunk is owed to be requested once the response is writable
+  private final AtomicBoolean awaitingWritable = new AtomicBoolean();
+  private volatile Subscription subscription;
+  private volatile boolean written;
+
+  public ResponseBodySubscriber(ServerHttpExchange http) {
+    this.http = http;
+  }
+
+  @Override
+  public void onSubscribe(Subscription s) {
+    if (s == null) {
+      throw new NullPointerException("subscription");
+    }
+    if (subscription != null) {
+      s.cancel();
+      return;
+    }
+    subscription = s;
+    http.onwritable($ -> {
+      if (awaitingWritable.compareAndSet(true, false)) {
+        subscription.request(1);
+      }
+    })
+    .onerror($ -> s.cancel())
+    .onclose($ -> s.cancel());
+    s.request(1);
+  }
+
+  @Override
+  public void onNext(ByteBuffer byteBuffer) {
+    if (byteBuffer == null) {
+      throw new NullPointerException("byteBuffer");
+    }
+    written = true;
+    http.write(byteBuffer);
+    // Set in advance as the writable event may be fired while checking
+    awaitingWritable.set(true);
+    if (http.isWritable() && awaitingWritable.compareAndSet(true, false)) {
+      subscription.request(1);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    if (throwable == null) {
+      throw new NullPointerException("throwable");
+    }
+    logger.warn("The publisher of the response body of {} has failed", http, throwable);
+    if (written) {
+      http.abort();
+    } else {
+      http.setStatus(HttpStatus.INTERNAL_SERVER_ERROR).end();
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    http.end();
+  }
+
+}
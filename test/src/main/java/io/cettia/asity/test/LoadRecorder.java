@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cettia.asity.test;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latency and the throughput of a load test which keeps a fixed
+ * number of round trips in flight, and writes them to a report so that
+ * bridges can be compared. Load tests are skipped unless the
+ * {@code asity.load} system property is {@code true}.
+ * <p/>
+ * <ul>
+ * <li>{@code asity.load.warmup}: seconds to warm up without recording, 5 by default.</li>
+ * <li>{@code asity.load.duration}: seconds to record, 15 by default.</li>
+ * <li>{@code asity.load.concurrency}: round trips in flight, 16 by default.</li>
+ * <li>{@code asity.load.size}: characters of a message, 256 by default.</li>
+ * <li>{@code asity.load.report}: a CSV file where a row is appended per test,
+ * {@code target/load-report.csv} by default.</li>
+ * </ul>
+ * Note that the warmup and the duration should fit in the timeout of a test,
+ * 60 seconds. As bridges log at debug level in their tests, pass
+ * {@code -Dlogback.configurationFile=logback-load.xml} to measure them without
+ * logging, for example:
+ * <p/>
+ * <pre>
+ * mvn test -Dasity.load=true -Dlogback.configurationFile=logback-load.xml -Dtest=*Test#testEchoLoad
+ * </pre>
+ *
+ * @author Donghwan Kim
+ */
+public class LoadRecorder {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoadRecorder.class);
+  private static final String HEADER =
+    "bridge,scenario,concurrency,size,seconds,count,errors,throughput,p50,p90,p99,p999,max";
+
+  private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+  private final AtomicLong errors = new AtomicLong();
+  private final long recordFrom;
+  private final long recordUntil;
+
+  public LoadRecorder() {
+    long now = System.nanoTime();
+    this.recordFrom = now + TimeUnit.SECONDS.toNanos(warmup());
+    this.recordUntil = recordFrom + TimeUnit.SECONDS.toNanos(duration());
+  }
+
+  public static boolean enabled() {
+    return Boolean.getBoolean("asity.load");
+  }
+
+  public static int warmup() {
+    return Integer.getInteger("asity.load.warmup", 5);
+  }
+
+  public static int duration() {
+    return Integer.getInteger("asity.load.duration", 15);
+  }
+
+  public static int concurrency() {
+    return Integer.getInteger("asity.load.concurrency", 16);
+  }
+
+  public static int size() {
+    return Integer.getInteger("asity.load.size", 256);
+  }
+
+  /**
+   * Returns a message of {@link #size()} characters.
+   */
+  public static String message() {
+    StringBuilder builder = new StringBuilder(size());
+    for (int i = 0; i < size(); i++) {
+      builder.append((char) ('a' + i % 26));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns {@code true} if no more round trip should be started.
+   */
+  public boolean finished() {
+    return System.nanoTime() >= recordUntil;
+  }
+
+  /**
+   * Records a round trip started at the given {@link System#nanoTime()} if
+   * it has started after the warmup.
+   */
+  public void record(long startNanos) {
+    long now = System.nanoTime();
+    if (startNanos >= recordFrom && now < recordUntil) {
+      histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(now - startNanos));
+    }
+  }
+
+  /**
+   * Counts a failed round trip.
+   */
+  public void error() {
+    if (System.nanoTime() >= recordFrom) {
+      errors.incrementAndGet();
+    }
+  }
+
+  public long count() {
+    return histogram.getTotalCount();
+  }
+
+  public long errors() {
+    return errors.get();
+  }
+
+  /**
+   * Appends the result to the report and logs it.
+   * Latencies are in microseconds and the throughput is in round trips per
+   * second.
+   */
+  public void report(String bridge, String scenario) throws IOException {
+    String row = String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%d,%.1f,%d,%d,%d,%d,%d", bridge,
+      scenario, concurrency(), size(), duration(), count(), errors(),
+      (double) count() / duration(), histogram.getValueAtPercentile(50),
+      histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+      histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+    logger.info("{}\n{}", HEADER, row);
+
+    Path path = Paths.get(System.getProperty("asity.load.report", "target/load-report.csv"));
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    boolean created = !Files.exists(path);
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+      StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+      if (created) {
+        writer.println(HEADER);
+      }
+      writer.println(row);
+    }
+  }
+
+}
@@ -16,30 +16,55 @@
 package io.cettia.asity.test;
 
 import io.cettia.asity.action.Action;
+import io.cettia.asity.http.BufferPool;
 import io.cettia.asity.http.HttpStatus;
+import io.cettia.asity.http.MultipartParser;
 import io.cettia.asity.http.ServerHttpExchange;
+import io.cettia.asity.reactivestreams.RequestBodyPublisher;
+import io.cettia.asity.reactivestreams.ResponseBodySubscriber;
 import net.jodah.concurrentunit.ConcurrentTestCase;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.api.Response.CompleteListener;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.client.util.BytesContentProvider;
 import org.eclipse.jetty.client.util.DeferredContentProvider;
+import org.eclipse.jetty.client.util.MultiPartContentProvider;
 import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.util.Callback;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Donghwan Kim
@@ -124,6 +149,36 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testHeaderIgnoringCase() throws Throwable {
+    requestAction(http -> {
+      threadAssertTrue(http.headerNames().contains("a") && http.headerNames().contains("A"));
+      threadAssertEquals(http.header("a"), "A");
+      threadAssertEquals(http.headers("b"), Arrays.asList("B1", "B2"));
+      threadAssertEquals(http.headers("c"), Collections.emptyList());
+      threadAssertNull(http.header("c"));
+      resume();
+    });
+    client.newRequest(uri()).header("A", "A").header("B", "B1").header("B", "B2").send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testParam() throws Throwable {
+    requestAction(http -> {
+      threadAssertEquals(http.paramNames(), new LinkedHashSet<>(Arrays.asList("a", "b", "c", "d")));
+      threadAssertEquals(http.param("a"), "A");
+      threadAssertEquals(http.params("b"), Arrays.asList("B1", "B 2"));
+      threadAssertEquals(http.param("c"), "");
+      threadAssertEquals(http.param("d"), "\uD55C");
+      threadAssertNull(http.param("A"));
+      threadAssertEquals(http.params("e"), Collections.emptyList());
+      resume();
+    });
+    client.newRequest(uri("/http?a=A&b=B1&b=B+2&c&d=%ED%95%9C")).send(ASYNC);
+    await();
+  }
+
   @Test
   public void testReadText() throws Throwable {
     requestAction(http -> {
@@ -175,6 +230,36 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testReadAsTextWithSplitCharacter() throws Throwable {
+    // 가 is encoded to 3 bytes, EA B0 80, in UTF-8
+    DeferredContentProvider content = new DeferredContentProvider();
+    requestAction(http -> {
+      StringBuilder body = new StringBuilder();
+      http.onchunk((String text) -> {
+        body.append(text);
+        switch (text) {
+          case "A":
+            content.offer(ByteBuffer.wrap(new byte[]{(byte) 0xB0, (byte) 0x80, 'B'}));
+            break;
+          case "가B":
+            content.close();
+            break;
+          default:
+            throw new IllegalStateException(text);
+        }
+      })
+      .onend($ -> {
+        threadAssertEquals(body.toString(), "A가B");
+        resume();
+      })
+      .readAsText("utf-8");
+    });
+    client.POST(uri()).content(content, "text/plain; charset=utf-8").send(ASYNC);
+    content.offer(ByteBuffer.wrap(new byte[]{'A', (byte) 0xEA}));
+    await();
+  }
+
   @Test
   public void testReadBinary() throws Throwable {
     requestAction(http -> {
@@ -275,6 +360,219 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testOnbodyWithMaxBodySize() throws Throwable {
+    requestAction(http -> http.setMaxBodySize(4)
+    .onerror(throwable -> {
+      threadAssertTrue(throwable instanceof IllegalStateException);
+      resume();
+    })
+    .onbody(data -> threadFail())
+    .read());
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new BytesContentProvider("hello".getBytes()), "application/octet-stream")
+    .send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testOnspooledbody() throws Throwable {
+    requestAction(http -> http.onspooledbody(body -> {
+      try {
+        threadAssertTrue(body.inMemory());
+        threadAssertEquals(body.map(), ByteBuffer.wrap(new byte[]{'h', 'i'}));
+        body.close();
+      } catch (IOException e) {
+        threadFail(e.getMessage());
+      }
+      resume();
+    })
+    .read());
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new StringContentProvider("hi"), "text/plain")
+    .send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testOnspooledbodyWithThreshold() throws Throwable {
+    byte[] bytes = createBytes(256 * 1024);
+    requestAction(http -> http.setSpoolThreshold(1024).onspooledbody(body -> {
+      try {
+        threadAssertFalse(body.inMemory());
+        threadAssertEquals(body.size(), (long) bytes.length);
+        threadAssertEquals(body.map(), ByteBuffer.wrap(bytes));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        for (long position = 0; position < body.size(); ) {
+          position += body.transferTo(position, body.size() - position, target);
+        }
+        threadAssertTrue(Arrays.equals(out.toByteArray(), bytes));
+        body.close();
+      } catch (IOException e) {
+        threadFail(e.getMessage());
+      }
+      resume();
+    })
+    .read());
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new BytesContentProvider(bytes), "application/octet-stream")
+    .send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testMultipart() throws Throwable {
+    byte[] bytes = createBytes(256 * 1024);
+    requestAction(http -> {
+      Map<String, ByteArrayOutputStream> parts = new LinkedHashMap<>();
+      String[] name = new String[1];
+      String boundary = MultipartParser.boundary(http.header("content-type"));
+      MultipartParser parser = new MultipartParser(boundary);
+      parser.onpart(part -> {
+        threadAssertEquals(part.filename(), "b".equals(part.name()) ? "b.bin" : null);
+        name[0] = part.name();
+        parts.put(name[0], new ByteArrayOutputStream());
+      })
+      .onpartchunk(chunk -> {
+        byte[] data = new byte[chunk.remaining()];
+        chunk.get(data);
+        parts.get(name[0]).write(data, 0, data.length);
+      })
+      .onend($ -> {
+        threadAssertEquals(parts.keySet(), new LinkedHashSet<>(Arrays.asList("a", "b")));
+        threadAssertEquals(new String(parts.get("a").toByteArray()), "A");
+        threadAssertTrue(Arrays.equals(parts.get("b").toByteArray(), bytes));
+        resume();
+      })
+      .onerror(throwable -> threadFail(throwable.getMessage()));
+      http.<ByteBuffer>onchunk(parser::parse).onend($ -> parser.end()).readAsBinary();
+    });
+    MultiPartContentProvider content = new MultiPartContentProvider();
+    content.addFieldPart("a", new StringContentProvider("A"), null);
+    content.addFilePart("b", "b.bin", new BytesContentProvider(bytes), null);
+    content.close();
+    client.newRequest(uri()).method(HttpMethod.POST).content(content).send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testRequestBodyPublisher() throws Throwable {
+    byte[] bytes = createBytes(256 * 1024);
+    requestAction(http -> new RequestBodyPublisher(http).subscribe(new Subscriber<ByteBuffer>() {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      Subscription subscription;
+
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription = s;
+        s.request(1);
+      }
+
+      @Override
+      public void onNext(ByteBuffer chunk) {
+        byte[] data = new byte[chunk.remaining()];
+        chunk.get(data);
+        body.write(data, 0, data.length);
+        // Requests from another thread
+        new Thread(() -> subscription.request(1)).start();
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        threadFail(throwable.getMessage());
+      }
+
+      @Override
+      public void onComplete() {
+        threadAssertTrue(Arrays.equals(body.toByteArray(), bytes));
+        resume();
+      }
+    }));
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new BytesContentProvider(bytes), "application/octet-stream")
+    .send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testPauseAndResume() throws Throwable {
+    final byte[] body = new byte[256 * 1024];
+    for (int i = 0; i < body.length; i++) {
+      body[i] = (byte) (i % 251);
+    }
+    requestAction(http -> {
+      ByteArrayOutputStream read = new ByteArrayOutputStream();
+      http.onchunk((ByteBuffer chunk) -> {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        read.write(bytes, 0, bytes.length);
+        // Pauses on every chunk and resumes on other thread
+        http.pause();
+        new Thread(() -> {
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          http.resume();
+        }).start();
+      })
+      .onend($ -> {
+        threadAssertTrue(Arrays.equals(read.toByteArray(), body));
+        resume();
+      })
+      .readAsBinary();
+    });
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new BytesContentProvider(body), "application/octet-stream")
+    .send(ASYNC);
+    await();
+  }
+
+  @Test
+  public void testReadWithBufferPool() throws Throwable {
+    byte[] body = createBytes(64 * 1024);
+    // Wipes out released buffers so that a buffer recycled too early shows up
+    BufferPool pool = new BufferPool() {
+      Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+      @Override
+      public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(1000);
+      }
+
+      @Override
+      public void release(ByteBuffer buffer) {
+        Arrays.fill(buffer.array(), (byte) 0);
+        buffer.clear();
+        buffers.offer(buffer);
+      }
+    };
+    requestAction(http -> {
+      ByteArrayOutputStream read = new ByteArrayOutputStream();
+      http.setBufferPool(pool)
+      .onchunk((ByteBuffer chunk) -> {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.duplicate().get(bytes);
+        read.write(bytes, 0, bytes.length);
+      })
+      .onbody((ByteBuffer data) -> {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        threadAssertTrue(Arrays.equals(bytes, body));
+        threadAssertTrue(Arrays.equals(read.toByteArray(), body));
+        resume();
+      })
+      .readAsBinary();
+    });
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new BytesContentProvider(body), "application/octet-stream")
+    .send(ASYNC);
+    await();
+  }
+
   @Test
   public void testSetStatus() throws Throwable {
     requestAction(http -> http.setStatus(HttpStatus.NOT_FOUND).end());
@@ -330,7 +628,7 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
       @Override
       public void onSuccess(Response res) {
         try {
-          latch.await();
+          threadAssertTrue(latch.await(10, TimeUnit.SECONDS));
         } catch (InterruptedException e) {
           throw new RuntimeException(e);
         }
@@ -357,7 +655,7 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
       @Override
       public void onSuccess(Response res) {
         try {
-          latch.await();
+          threadAssertTrue(latch.await(10, TimeUnit.SECONDS));
         } catch (InterruptedException e) {
           throw new RuntimeException(e);
         }
@@ -388,7 +686,7 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
       @Override
       public void onSuccess(Response response) {
         try {
-          latch.await();
+          threadAssertTrue(latch.await(10, TimeUnit.SECONDS));
         } catch (InterruptedException e) {
           throw new RuntimeException(e);
         }
@@ -399,6 +697,200 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testWriteBinaryBuffers() throws Throwable {
+    ByteBuffer direct = ByteBuffer.allocateDirect(2);
+    direct.put(new byte[]{'l', 'l'}).flip();
+    ByteBuffer offset = ByteBuffer.wrap(new byte[]{'x', 'o'});
+    offset.position(1);
+    requestAction(http -> http.write(ByteBuffer.wrap(new byte[]{'h', 'e'}), direct, offset)
+    .end(ByteBuffer.wrap(new byte[]{' '}).asReadOnlyBuffer(), ByteBuffer.wrap("world".getBytes())));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(getContentAsString(), "hello world");
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testEndWithBinaryBuffers() throws Throwable {
+    requestAction(http -> http.end(ByteBuffer.wrap("hello".getBytes()),
+      ByteBuffer.wrap(" world".getBytes())));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(getContentAsString(), "hello world");
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testWriteLargeBuffers() throws Throwable {
+    // Larger than what a container accepts at once so that writing has to wait
+    byte[] bytes = createBytes(1024 * 1024);
+    requestAction(http -> {
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length / 2);
+      direct.put(bytes, bytes.length / 2, bytes.length / 2).flip();
+      http.write(ByteBuffer.wrap(bytes, 0, bytes.length / 2)).end(direct);
+    });
+    client.newRequest(uri()).send(new BufferingResponseListener(2 * bytes.length) {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertTrue(Arrays.equals(getContent(), bytes));
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testResponseBodySubscriber() throws Throwable {
+    byte[] bytes = createBytes(1024 * 1024);
+    int chunkSize = 8192;
+    requestAction(http -> {
+      Publisher<ByteBuffer> publisher = subscriber -> subscriber.onSubscribe(new Subscription() {
+        int position;
+
+        @Override
+        public synchronized void request(long n) {
+          for (long i = 0; i < n && position < bytes.length; i++) {
+            int length = Math.min(chunkSize, bytes.length - position);
+            ByteBuffer chunk = ByteBuffer.wrap(Arrays.copyOfRange(bytes, position, position +
+              length));
+            position += length;
+            subscriber.onNext(chunk);
+          }
+          if (position == bytes.length) {
+            position++;
+            subscriber.onComplete();
+          }
+        }
+
+        @Override
+        public void cancel() {
+          threadFail();
+        }
+      });
+      publisher.subscribe(new ResponseBodySubscriber(http));
+    });
+    client.newRequest(uri()).send(new BufferingResponseListener(2 * bytes.length) {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertTrue(Arrays.equals(getContent(), bytes));
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testResponseBodySubscriberFailure() throws Throwable {
+    requestAction(http -> {
+      Publisher<ByteBuffer> publisher = subscriber -> subscriber.onSubscribe(new Subscription() {
+        boolean written;
+
+        @Override
+        public synchronized void request(long n) {
+          if (!written) {
+            written = true;
+            subscriber.onNext(ByteBuffer.wrap("hello".getBytes()));
+          } else {
+            subscriber.onError(new Exception("Expected"));
+          }
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      publisher.subscribe(new ResponseBodySubscriber(http));
+    });
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        // A truncated body shouldn't look like a complete response
+        threadAssertTrue(result.isFailed());
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testCork() throws Throwable {
+    requestAction(http -> http.cork()
+    .write("A")
+    .write(ByteBuffer.wrap(new byte[]{'B'}))
+    .uncork()
+    .write("C")
+    .cork()
+    .write("D")
+    .end());
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(getContentAsString(), "ABCD");
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testOnwritable() throws Throwable {
+    // Writes until the response becomes unwritable while the client doesn't read
+    final int chunkSize = 8192;
+    final int maxChunks = 2048;
+    final AtomicLong written = new AtomicLong();
+    requestAction(http -> {
+      http.onwritable($ -> http.end());
+      ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+      int count = 0;
+      while (count < maxChunks && http.isWritable()) {
+        http.write(chunk.duplicate());
+        count++;
+      }
+      written.set((long) count * chunkSize);
+      if (count == maxChunks) {
+        http.end();
+      }
+    });
+    client.newRequest(uri()).send(new Response.Listener.Adapter() {
+      boolean paused;
+      long read;
+
+      @Override
+      public void onContent(Response response, ByteBuffer content, Callback callback) {
+        read += content.remaining();
+        if (!paused) {
+          paused = true;
+          new Thread(() -> {
+            try {
+              Thread.sleep(1000);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            callback.succeeded();
+          }).start();
+        } else {
+          callback.succeeded();
+        }
+      }
+
+      @Override
+      public void onSuccess(Response response) {
+        threadAssertEquals(read, written.get());
+        resume();
+      }
+    });
+    await();
+  }
+
   @Test
   public void testEnd() throws Throwable {
     requestAction(ServerHttpExchange::end);
@@ -411,6 +903,124 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testEndWithContentLength() throws Throwable {
+    requestAction(http -> http.setHeader("content-length", "10").write("hello").end("world"));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(result.getResponse().getHeaders().get("content-length"), "10");
+        threadAssertEquals(result.getResponse().getHeaders().get("transfer-encoding"), null);
+        threadAssertEquals(getContentAsString(), "helloworld");
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testSendFile() throws Throwable {
+    byte[] bytes = createBytes(256 * 1024);
+    Path path = createFile(bytes);
+    requestAction(http -> http.sendFile(path));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(result.getResponse().getHeaders().get("content-length"),
+          Integer.toString(bytes.length));
+        threadAssertTrue(Arrays.equals(getContent(), bytes));
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testSendFileRegion() throws Throwable {
+    byte[] bytes = createBytes(256 * 1024);
+    Path path = createFile(bytes);
+    requestAction(http -> http.sendFile(path, 1000, 100000));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(result.getResponse().getHeaders().get("content-length"), "100000");
+        threadAssertTrue(Arrays.equals(getContent(), Arrays.copyOfRange(bytes, 1000, 101000)));
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testSendFileInvalidRegion() throws Throwable {
+    Path path = createFile(createBytes(100));
+    requestAction(http -> {
+      for (long[] region : new long[][]{{-1, 10}, {10, -1}, {50, 51}, {1, Long.MAX_VALUE}}) {
+        try {
+          http.sendFile(path, region[0], region[1]);
+          threadFail("The region " + Arrays.toString(region) + " is accepted");
+        } catch (IllegalArgumentException e) {
+          // Expected
+        }
+      }
+      http.end();
+    });
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(result.getResponse().getStatus(), 200);
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testSendFileAfterWrite() throws Throwable {
+    Path path = createFile("world".getBytes());
+    requestAction(http -> http.write("hello ").sendFile(path));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        threadAssertEquals(getContentAsString(), "hello world");
+        resume();
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testSendFileFailure() throws Throwable {
+    // A directory has a size but fails to be read
+    Path path = Files.createTempDirectory("asity");
+    path.toFile().deleteOnExit();
+    Assume.assumeTrue(Files.size(path) > 0);
+    requestAction(http -> http.sendFile(path));
+    client.newRequest(uri()).send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        // A truncated body shouldn't look like a successful response
+        threadAssertTrue(result.isFailed() || result.getResponse().getStatus() != 200);
+        resume();
+      }
+    });
+    await();
+  }
+
+  private static byte[] createBytes(int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i % 251);
+    }
+    return bytes;
+  }
+
+  private static Path createFile(byte[] bytes) throws Exception {
+    Path path = Files.createTempFile("asity", ".bin");
+    path.toFile().deleteOnExit();
+    return Files.write(path, bytes);
+  }
+
   @Test
   public void testOnclose() throws Throwable {
     requestAction(http -> http.onclose($ -> resume()));
@@ -425,4 +1035,43 @@ public abstract class ServerHttpExchangeTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testEchoLoad() throws Throwable {
+    Assume.assumeTrue("Set -Dasity.load=true to run the load test", LoadRecorder.enabled());
+    requestAction(http -> http.<String>onbody(http::end).read());
+    client.setMaxConnectionsPerDestination(LoadRecorder.concurrency());
+    LoadRecorder recorder = new LoadRecorder();
+    String message = LoadRecorder.message();
+    CountDownLatch latch = new CountDownLatch(LoadRecorder.concurrency());
+    for (int i = 0; i < LoadRecorder.concurrency(); i++) {
+      echo(recorder, message, latch);
+    }
+    threadAssertTrue(latch.await(LoadRecorder.warmup() + LoadRecorder.duration() + 10,
+      TimeUnit.SECONDS));
+    recorder.report(getClass().getSimpleName(), "http-echo");
+    threadAssertTrue(recorder.count() > 0);
+  }
+
+  // Sends the next request when the previous one completes
+  private void echo(LoadRecorder recorder, String message, CountDownLatch latch) {
+    if (recorder.finished()) {
+      latch.countDown();
+      return;
+    }
+    long start = System.nanoTime();
+    client.newRequest(uri()).method(HttpMethod.POST)
+    .content(new StringContentProvider(message), "text/plain; charset=utf-8")
+    .send(new BufferingResponseListener() {
+      @Override
+      public void onComplete(Result result) {
+        if (result.isSucceeded() && message.equals(getContentAsString())) {
+          recorder.record(start);
+        } else {
+          recorder.error();
+        }
+        echo(recorder, message, latch);
+      }
+    });
+  }
+
 }
@@ -25,6 +25,7 @@ import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -34,6 +35,10 @@ import java.net.ServerSocket;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Donghwan Kim
@@ -127,6 +132,39 @@ public abstract class ServerWebSocketTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testHeaderIgnoringCase() throws Throwable {
+    websocketAction(ws -> {
+      threadAssertTrue(ws.headerNames().contains("a") && ws.headerNames().contains("A"));
+      threadAssertEquals(ws.header("a"), "A");
+      threadAssertEquals(ws.headers("b"), Arrays.asList("B1", "B2"));
+      threadAssertEquals(ws.headers("c"), Collections.emptyList());
+      threadAssertNull(ws.header("c"));
+      resume();
+    });
+
+    ClientUpgradeRequest request = new ClientUpgradeRequest();
+    request.setHeader("A", "A");
+    request.setHeader("B", Arrays.asList("B1", "B2"));
+
+    client.connect(NOOP, URI.create(uri()), request);
+    await();
+  }
+
+  @Test
+  public void testParam() throws Throwable {
+    websocketAction(ws -> {
+      threadAssertEquals(ws.paramNames(), new LinkedHashSet<>(Arrays.asList("a", "b", "c")));
+      threadAssertEquals(ws.param("a"), "A");
+      threadAssertEquals(ws.params("b"), Arrays.asList("B1", "B 2"));
+      threadAssertEquals(ws.param("c"), "");
+      threadAssertNull(ws.param("d"));
+      resume();
+    });
+    client.connect(NOOP, URI.create(uri("/websocket?a=A&b=B1&b=B+2&c")));
+    await();
+  }
+
   @Test
   public void testClose() throws Throwable {
     websocketAction(ServerWebSocket::close);
@@ -279,4 +317,80 @@ public abstract class ServerWebSocketTestBase extends ConcurrentTestCase {
     await();
   }
 
+  @Test
+  public void testEchoLoad() throws Throwable {
+    Assume.assumeTrue("Set -Dasity.load=true to run the load test", LoadRecorder.enabled());
+    websocketAction(ws -> ws.ontext(ws::send));
+    LoadRecorder recorder = new LoadRecorder();
+    String message = LoadRecorder.message();
+    CountDownLatch latch = new CountDownLatch(LoadRecorder.concurrency());
+    for (int i = 0; i < LoadRecorder.concurrency(); i++) {
+      client.connect(new EchoSocket(recorder, message, latch), URI.create(uri()));
+    }
+    threadAssertTrue(latch.await(LoadRecorder.warmup() + LoadRecorder.duration() + 10,
+      TimeUnit.SECONDS));
+    recorder.report(getClass().getSimpleName(), "websocket-echo");
+    threadAssertTrue(recorder.count() > 0);
+  }
+
+  // Sends the next message when the previous one is echoed
+  private static class EchoSocket extends WebSocketAdapter {
+    final LoadRecorder recorder;
+    final String message;
+    final CountDownLatch latch;
+    long start;
+    boolean done;
+
+    EchoSocket(LoadRecorder recorder, String message, CountDownLatch latch) {
+      this.recorder = recorder;
+      this.message = message;
+      this.latch = latch;
+    }
+
+    @Override
+    public void onWebSocketConnect(Session session) {
+      super.onWebSocketConnect(session);
+      next();
+    }
+
+    @Override
+    public void onWebSocketText(String text) {
+      if (message.equals(text)) {
+        recorder.record(start);
+      } else {
+        recorder.error();
+      }
+      next();
+    }
+
+    @Override
+    public void onWebSocketError(Throwable cause) {
+      recorder.error();
+      finish();
+    }
+
+    @Override
+    public void onWebSocketClose(int statusCode, String reason) {
+      super.onWebSocketClose(statusCode, reason);
+      finish();
+    }
+
+    void next() {
+      if (recorder.finished()) {
+        getSession().close();
+        finish();
+        return;
+      }
+      start = System.nanoTime();
+      getRemote().sendString(message, ASYNC);
+    }
+
+    synchronized void finish() {
+      if (!done) {
+        done = true;
+        latch.countDown();
+      }
+    }
+  }
+
 }
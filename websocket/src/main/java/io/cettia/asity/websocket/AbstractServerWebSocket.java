@@ -17,12 +17,13 @@ package io.cettia.asity.websocket;
 
 import io.cettia.asity.action.Action;
 import io.cettia.asity.action.Actions;
-import io.cettia.asity.action.SimpleActions;
+import io.cettia.asity.action.CompactActions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Abstract base class for {@link ServerWebSocket}.
@@ -31,28 +32,59 @@ import java.util.List;
  */
 public abstract class AbstractServerWebSocket implements ServerWebSocket {
 
-  protected final Actions<String> textActions = new SimpleActions<>();
-  protected final Actions<ByteBuffer> binaryActions = new SimpleActions<>();
-  protected final Actions<Throwable> errorActions = new SimpleActions<>();
-  protected final Actions<Void> closeActions = new SimpleActions<>(new Actions.Options().once(true).memory(true));
+  private static final Logger logger = LoggerFactory.getLogger(AbstractServerWebSocket.class);
 
-  private final Logger logger = LoggerFactory.getLogger(AbstractServerWebSocket.class);
+  // Actions are created on demand as most of them have no action during
+  // the lifecycle of a socket
+  private Actions<String> textActions;
+  private Actions<ByteBuffer> binaryActions;
+  private Actions<Throwable> errorActions;
+  private Actions<Void> closeActions;
   private State state = State.OPEN;
 
-  public AbstractServerWebSocket() {
-    closeActions.add($ -> state = State.CLOSED);
-    if (logger.isDebugEnabled()) {
-      textActions.add(frame -> logger.debug("{} receives a text frame {}", this, frame));
-      binaryActions.add(frame -> logger.debug("{} receives a binary frame {}", this, frame));
-      errorActions.add(throwable -> logger.debug("{} has received a throwable {}", this, throwable));
-      closeActions.add($ -> logger.debug("{} has been closed", this));
-    }
+  // The request headers and query parameters are read once on demand
+  private final RequestHead head = new RequestHead(this::doHeaderNames, this::doHeaders,
+    this::uri);
+
+  @Override
+  public Set<String> headerNames() {
+    return head.headerNames();
   }
 
   @Override
   public String header(String name) {
-    List<String> headers = headers(name);
-    return headers != null && headers.size() > 0 ? headers.get(0) : null;
+    return head.header(name);
+  }
+
+  @Override
+  public List<String> headers(String name) {
+    return head.headers(name);
+  }
+
+  /**
+   * Returns the names of the handshake request headers. It's called once per socket.
+   */
+  protected abstract Set<String> doHeaderNames();
+
+  /**
+   * Returns the handshake request headers associated with the given name. It's called
+   * once per header name.
+   */
+  protected abstract List<String> doHeaders(String name);
+
+  @Override
+  public Set<String> paramNames() {
+    return head.paramNames();
+  }
+
+  @Override
+  public String param(String name) {
+    return head.param(name);
+  }
+
+  @Override
+  public List<String> params(String name) {
+    return head.params(name);
   }
 
   @Override
@@ -92,28 +124,116 @@ public abstract class AbstractServerWebSocket implements ServerWebSocket {
 
   @Override
   public ServerWebSocket ontext(Action<String> action) {
+    if (textActions == null) {
+      textActions = createActions(new Actions.Options());
+    }
     textActions.add(action);
     return this;
   }
 
+  /**
+   * Fires the text event. It should be called by the implementation when a
+   * text frame is received.
+   */
+  protected void fireText(String data) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} receives a text frame {}", this, data);
+    }
+    if (textActions != null) {
+      textActions.fire(data);
+    }
+  }
+
   @Override
   public ServerWebSocket onbinary(Action<ByteBuffer> action) {
+    if (binaryActions == null) {
+      binaryActions = createActions(new Actions.Options());
+    }
     binaryActions.add(action);
     return this;
   }
 
+  /**
+   * Fires the binary event. It should be called by the implementation when a
+   * binary frame is received.
+   */
+  protected void fireBinary(ByteBuffer data) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} receives a binary frame {}", this, data);
+    }
+    if (binaryActions != null) {
+      binaryActions.fire(data);
+    }
+  }
+
   @Override
   public ServerWebSocket onclose(Action<Void> action) {
+    if (closeActions == null) {
+      closeActions = createActions(new Actions.Options().once(true).memory(true));
+      // Replays the close event
+      if (state == State.CLOSED) {
+        closeActions.fire();
+      }
+    }
     closeActions.add(action);
     return this;
   }
 
+  /**
+   * Fires the close event. It should be called by the implementation when the
+   * connection has been closed.
+   */
+  protected void fireClose() {
+    if (state != State.CLOSED) {
+      state = State.CLOSED;
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} has been closed", this);
+      }
+      if (closeActions != null) {
+        closeActions.fire();
+      }
+    }
+  }
+
   @Override
   public ServerWebSocket onerror(Action<Throwable> action) {
+    if (errorActions == null) {
+      errorActions = createActions(new Actions.Options());
+    }
     errorActions.add(action);
     return this;
   }
 
+  /**
+   * Fires the error event. It should be called by the implementation when an
+   * error occurs on the connection.
+   */
+  protected void fireError(Throwable throwable) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} has received a throwable {}", this, throwable);
+    }
+    if (errorActions != null) {
+      errorActions.fire(throwable);
+    }
+  }
+
+  /**
+   * Creates actions for an event of this socket. It's called on demand, the
+   * first time an action is added to the event. The default implementation
+   * returns {@link CompactActions} which calls actions in the firing thread.
+   * An implementation can override it to return, for example,
+   * {@link io.cettia.asity.action.AsyncActions} so that actions run on an
+   * executor, as long as it doesn't reuse the fired buffers.
+   * <p/>
+   * The actions of all the events should then share one
+   * {@link io.cettia.asity.action.SerialExecutor} per socket. Otherwise, each
+   * event is queued on its own, and, for example, the close event may be
+   * delivered before frames still queued.
+   */
+  protected <T> Actions<T> createActions(Actions.Options options) {
+    return new CompactActions<>(options);
+  }
+
   @Override
   public String toString() {
     return String.format("%s@%x[state=%s]", getClass().getSimpleName(), hashCode(), state);
@@ -38,8 +38,9 @@ public interface ServerWebSocket {
   String uri();
 
   /**
-   * The names of the handshake request headers. HTTP header is not case-sensitive
-   * but {@link Set} is case-sensitive.
+   * The names of the handshake request headers. As HTTP header is not
+   * case-sensitive, so is {@link Set#contains(Object)} of the returned set.
+   * The headers are read once and cached with the socket.
    */
   Set<String> headerNames();
 
@@ -54,6 +55,26 @@ public interface ServerWebSocket {
    */
   List<String> headers(String name);
 
+  /**
+   * The names of the query parameters of the handshake request URI, decoded
+   * in UTF-8.
+   */
+  Set<String> paramNames();
+
+  /**
+   * Returns the first query parameter associated with the given name or
+   * {@code null} if no parameter is found. An empty string is returned for
+   * a parameter without value.
+   */
+  String param(String name);
+
+  /**
+   * Returns the query parameters associated with the given name or empty
+   * list if no parameter is found. The query string is parsed once and
+   * cached with the socket.
+   */
+  List<String> params(String name);
+
   /**
    * Closes the connection. This method has no side effect if called more than
    * once.